@@ -0,0 +1,36 @@
+package org.acme.search.service;
+
+import org.acme.search.enums.SearchMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of the wrapper search query body for every search mode
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBuildingBenchmark {
+
+    @Param({"CASE_INSENSITIVE", "CASE_SENSITIVE", "FULL_MATCH"})
+    SearchMode mode;
+
+    @Param({"Barcelona", "Player of the Match Game \"21\"", ""})
+    String query;
+
+    private SearchService searchService;
+
+    @Setup
+    public void setUp() {
+        searchService = new SearchService();
+    }
+
+    @Benchmark
+    public byte[] buildWrapperSearchQuery() {
+        return searchService.buildWrapperSearchQuery(query, 10, mode);
+    }
+}
@@ -0,0 +1,96 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.acme.search.enums.EntityType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Elasticsearch responses for the benchmarks, expanded from the _search responses recorded
+ * per index under {@code src/jmh/resources/responses}. Each recording holds a few distinct,
+ * fully populated documents (fixtures, questions, branding, related entities, labels), so
+ * parsing cost reflects production payloads rather than mostly null fields.
+ */
+final class RecordedResponses {
+
+    private RecordedResponses() {
+    }
+
+    /**
+     * A _search response with the given number of hits, cycling through the recorded hits;
+     * every hit gets its own ID and a descending score
+     */
+    static byte[] searchResponse(ObjectMapper objectMapper, EntityType type, int hitCount) {
+        ObjectNode response = recorded(objectMapper, type);
+        ArrayNode hits = (ArrayNode) response.path("hits").path("hits");
+        List<JsonNode> recordedHits = new ArrayList<>();
+        hits.forEach(recordedHits::add);
+        double maxScore = response.path("hits").path("max_score").asDouble();
+        hits.removeAll();
+        for (int i = 0; i < hitCount; i++) {
+            ObjectNode hit = recordedHits.get(i % recordedHits.size()).deepCopy();
+            String id = hit.get("_id").asText() + "-" + i;
+            hit.put("_id", id);
+            hit.put("_score", maxScore * (hitCount - i) / hitCount);
+            ((ObjectNode) hit.get("_source")).put("id", id);
+            hits.add(hit);
+        }
+        ((ObjectNode) response.path("hits").path("total")).put("value", hitCount);
+        return write(objectMapper, response);
+    }
+
+    /**
+     * A GET _doc response for the first recorded document
+     */
+    static byte[] getResponse(ObjectMapper objectMapper, EntityType type) {
+        JsonNode hit = recorded(objectMapper, type).path("hits").path("hits").get(0);
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("_index", type.getIndex());
+        response.put("_id", hit.get("_id").asText());
+        response.put("_version", 1);
+        response.put("_seq_no", 0);
+        response.put("_primary_term", 1);
+        response.put("found", true);
+        response.set("_source", hit.get("_source"));
+        return write(objectMapper, response);
+    }
+
+    /**
+     * The first recorded document bound to its wrapper class
+     */
+    static Object source(ObjectMapper objectMapper, EntityType type) {
+        JsonNode source = recorded(objectMapper, type).path("hits").path("hits").get(0).get("_source");
+        try {
+            return objectMapper.treeToValue(source, type.getWrapperClass());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ObjectNode recorded(ObjectMapper objectMapper, EntityType type) {
+        String resource = "/responses/" + type.getIndex() + ".json";
+        try (InputStream content = RecordedResponses.class.getResourceAsStream(resource)) {
+            if (content == null) {
+                throw new IllegalStateException("Missing recorded response " + resource);
+            }
+            return (ObjectNode) objectMapper.readTree(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] write(ObjectMapper objectMapper, JsonNode response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
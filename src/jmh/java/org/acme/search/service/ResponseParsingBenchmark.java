@@ -0,0 +1,53 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.acme.search.enums.EntityType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of recorded _search and GET _doc responses into wrapper documents
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseParsingBenchmark {
+
+    @Param({"MATCHES", "PREDICTIONS", "QUIZ_GAMES", "PLAYER_GAMES"})
+    EntityType type;
+
+    @Param({"10", "100", "1000"})
+    int hits;
+
+    private SearchResponseParser parser;
+    private byte[] searchResponse;
+    private byte[] getResponse;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        parser = new SearchResponseParser(objectMapper);
+        searchResponse = RecordedResponses.searchResponse(objectMapper, type, hits);
+        getResponse = RecordedResponses.getResponse(objectMapper, type);
+    }
+
+    @Benchmark
+    public List<?> parseSearchResponse() throws IOException {
+        return parser.parseSearchHits(new ByteArrayInputStream(searchResponse), type.getWrapperClass());
+    }
+
+    @Benchmark
+    public Optional<?> parseGetResponse() throws IOException {
+        return parser.parseGetSource(new ByteArrayInputStream(getResponse), type.getWrapperClass());
+    }
+}
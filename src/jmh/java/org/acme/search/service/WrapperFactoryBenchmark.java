@@ -0,0 +1,63 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.acme.search.dto.classicquiz.ClassicQuizPublicDto;
+import org.acme.search.dto.classicquiz.ClassicQuizWrapper;
+import org.acme.search.dto.football.Match;
+import org.acme.search.dto.football.MatchWrapper;
+import org.acme.search.dto.potm.PlayerOfTheMatch;
+import org.acme.search.dto.potm.PlayerOfTheMatchWrapper;
+import org.acme.search.dto.predictor.GameInstance;
+import org.acme.search.dto.predictor.GameInstanceWrapper;
+import org.acme.search.enums.EntityType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building search wrappers from the recorded documents with the {@code *Wrapper.of(...)} factories
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WrapperFactoryBenchmark {
+
+    private Match match;
+    private GameInstance gameInstance;
+    private ClassicQuizPublicDto quiz;
+    private PlayerOfTheMatch playerGame;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        match = ((MatchWrapper) RecordedResponses.source(objectMapper, EntityType.MATCHES)).data();
+        gameInstance = ((GameInstanceWrapper) RecordedResponses.source(objectMapper, EntityType.PREDICTIONS)).data();
+        quiz = ((ClassicQuizWrapper) RecordedResponses.source(objectMapper, EntityType.QUIZ_GAMES)).data();
+        playerGame = ((PlayerOfTheMatchWrapper) RecordedResponses.source(objectMapper, EntityType.PLAYER_GAMES)).data();
+    }
+
+    @Benchmark
+    public MatchWrapper wrapMatch() {
+        return MatchWrapper.of(match);
+    }
+
+    @Benchmark
+    public GameInstanceWrapper wrapGameInstance() {
+        return GameInstanceWrapper.of(gameInstance);
+    }
+
+    @Benchmark
+    public ClassicQuizWrapper wrapClassicQuiz() {
+        return ClassicQuizWrapper.of(quiz);
+    }
+
+    @Benchmark
+    public PlayerOfTheMatchWrapper wrapPlayerOfTheMatch() {
+        return PlayerOfTheMatchWrapper.of(playerGame);
+    }
+}
@@ -1,6 +1,11 @@
 package org.acme.search.config;
 
+import io.quarkus.runtime.configuration.MemorySize;
 import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.OptionalInt;
 
 /**
  * Configuration for sample data loading
@@ -29,4 +34,114 @@ public interface SampleDataConfig {
      * @return records per type
      */
     int recordsPerType();
+
+    /**
+     * How long to wait for the cluster to reach yellow status before giving up on sample data
+     * @return cluster wait timeout
+     */
+    @WithDefault("2m")
+    Duration clusterWaitTimeout();
+
+    /**
+     * Reload the sample data even when the indices already hold the same dataset
+     * @return true to always reload
+     */
+    @WithDefault("false")
+    boolean forceReload();
+
+    /**
+     * Bulk ingestion settings for performance modes
+     * @return bulk settings
+     */
+    Bulk bulk();
+
+    interface Bulk {
+
+        /**
+         * Initial number of documents per _bulk request; adapted to the observed latency
+         * between min-batch-size and max-batch-size
+         * @return initial batch size
+         */
+        @WithDefault("1000")
+        int batchSize();
+
+        /**
+         * Smallest batch the adaptive sizing shrinks to
+         * @return min batch size
+         */
+        @WithDefault("100")
+        int minBatchSize();
+
+        /**
+         * Largest batch the adaptive sizing grows to
+         * @return max batch size
+         */
+        @WithDefault("10000")
+        int maxBatchSize();
+
+        /**
+         * Size at which a batch is sent regardless of its document count
+         * @return max batch size in bytes
+         */
+        @WithDefault("10M")
+        MemorySize maxBatchBytes();
+
+        /**
+         * Server-side _bulk time the batch size is tuned for; slower responses shrink the batch
+         * @return target latency
+         */
+        @WithDefault("1s")
+        Duration targetLatency();
+
+        /**
+         * Maximum number of _bulk requests in flight at once; producers wait when it is reached
+         * @return max in-flight requests
+         */
+        @WithDefault("4")
+        int maxInFlight();
+
+        /**
+         * Attempts per document, including the first one, for items that fail with a
+         * transient status (429, 502, 503, 504)
+         * @return max attempts
+         */
+        @WithDefault("5")
+        int maxAttempts();
+
+        /**
+         * Upper bound of the first retry delay; doubles with every attempt, with full jitter
+         * @return initial backoff
+         */
+        @WithDefault("100ms")
+        Duration initialBackoff();
+
+        /**
+         * Cap for the retry delay
+         * @return max backoff
+         */
+        @WithDefault("10s")
+        Duration maxBackoff();
+
+        /**
+         * NDJSON file that documents which could not be indexed are appended to, as
+         * replayable _bulk action and source lines
+         * @return dead-letter file path
+         */
+        @WithDefault("bulk-dead-letter.ndjson")
+        String deadLetterFile();
+
+        /**
+         * Whether refresh and replicas are disabled on the target indices while loading and
+         * restored afterwards
+         * @return true if load settings are applied
+         */
+        @WithDefault("true")
+        boolean optimizeIndexSettings();
+
+        /**
+         * Segment count to force merge the loaded indices to; no force merge when unset
+         * @return max segments per shard
+         */
+        OptionalInt forceMergeSegments();
+    }
 }
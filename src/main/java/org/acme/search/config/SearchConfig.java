@@ -0,0 +1,154 @@
+package org.acme.search.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuration for search execution
+ */
+@ConfigMapping(prefix = "app.search")
+public interface SearchConfig {
+
+    /**
+     * Unified (type-less) search configuration
+     * @return unified search settings
+     */
+    Unified unified();
+
+    /**
+     * In-process search result cache configuration
+     * @return cache settings
+     */
+    Cache cache();
+
+    /**
+     * Single-flight coalescing of identical concurrent searches
+     * @return coalescing settings
+     */
+    Coalesce coalesce();
+
+    /**
+     * Cursor-based paging configuration
+     * @return paging settings
+     */
+    Paging paging();
+
+    interface Unified {
+
+        /**
+         * How the per-type searches of a unified search are executed
+         */
+        enum Strategy {
+            SEQUENTIAL,     // One index after another
+            CONCURRENT,     // All indices in flight at once, bounded by the deadline
+            MSEARCH         // One _msearch round trip for all indices, bounded by the deadline
+        }
+
+        /**
+         * Execution strategy for unified search
+         * @return the strategy
+         */
+        @WithDefault("CONCURRENT")
+        Strategy strategy();
+
+        /**
+         * How the results of the per-type searches are combined
+         */
+        enum Ranking {
+            SPLIT,          // A fixed size/4 results per type, whatever their relevance
+            SCORE           // The size most relevant hits over all types, merged by _score
+        }
+
+        /**
+         * Ranking of unified search results. SCORE always runs the per-type searches concurrently,
+         * whatever the strategy.
+         * @return the ranking
+         */
+        @WithDefault("SPLIT")
+        Ranking ranking();
+
+        /**
+         * For SCORE ranking, how many hits are fetched per type in the first round, as a
+         * multiple of an even share ({@code size / 4}). Types whose hits all made the merged
+         * top {@code size} are fetched again with the full size.
+         * @return the over-fetch factor
+         */
+        @WithDefault("2.0")
+        double overFetch();
+
+        /**
+         * Overall deadline for a concurrent or _msearch unified search. Types that have not
+         * answered by then are reported as incomplete instead of failing the request.
+         * @return the deadline
+         */
+        @WithDefault("2s")
+        Duration deadline();
+    }
+
+    interface Cache {
+
+        /**
+         * Whether search results are cached
+         * @return true if enabled
+         */
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * Maximum number of cached result lists; the least recently used entry is evicted first
+         * @return max entries
+         */
+        @WithDefault("10000")
+        int maxEntries();
+
+        /**
+         * Time to live of a cached result list
+         * @return the default TTL
+         */
+        @WithDefault("30s")
+        Duration ttl();
+
+        /**
+         * Per-type TTL overrides keyed by API type name (matches, predictions, quiz-games, player-games)
+         * @return TTL overrides
+         */
+        Map<String, Duration> typeTtl();
+    }
+
+    interface Coalesce {
+
+        /**
+         * Whether identical concurrent searches share one Elasticsearch request
+         * @return true if enabled
+         */
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * Maximum number of distinct searches tracked at once; further searches are not coalesced
+         * @return max in-flight searches
+         */
+        @WithDefault("1000")
+        int maxInFlight();
+    }
+
+    interface Paging {
+
+        /**
+         * How long the point in time of a paged search is kept open between two pages
+         * @return the keep-alive
+         */
+        @WithDefault("1m")
+        Duration keepAlive();
+
+        /**
+         * Number of documents fetched per request by the NDJSON export
+         * @return export page size
+         */
+        @WithDefault("1000")
+        int exportPageSize();
+    }
+}
@@ -0,0 +1,20 @@
+package org.acme.search.dto;
+
+import java.util.List;
+
+/**
+ * DTO representing a batch lookup of documents by type and ID
+ */
+public record BatchLookupRequest(
+    List<Item> items
+) {
+
+    /**
+     * One document to look up. The type accepts the same names as the unified search endpoint.
+     */
+    public record Item(
+        String type,
+        String id
+    ) {
+    }
+}
@@ -0,0 +1,35 @@
+package org.acme.search.dto;
+
+import java.util.List;
+
+/**
+ * DTO representing the result of a batch lookup. Results are in request order, one per requested item.
+ */
+public record BatchLookupResponse(
+    List<Result> results,
+    int found,
+    int notFound
+) {
+
+    /**
+     * Lookup result for one requested item. {@code document} is the stored wrapper, or null
+     * when the document does not exist; {@code error} is set when Elasticsearch could not
+     * look it up (e.g. the index is missing).
+     */
+    public record Result(
+        String type,
+        String id,
+        boolean found,
+        Object document,
+        String error
+    ) {
+    }
+
+    /**
+     * Count found and missing documents
+     */
+    public static BatchLookupResponse of(List<Result> results) {
+        int found = (int) results.stream().filter(Result::found).count();
+        return new BatchLookupResponse(results, found, results.size() - found);
+    }
+}
@@ -0,0 +1,13 @@
+package org.acme.search.dto;
+
+import java.util.List;
+
+/**
+ * DTO representing one page of a cursor-paged search. Pass {@code cursor} back to get the
+ * next page; it is null on the last page.
+ */
+public record SearchPageResponse(
+    List<UnifiedSearchResponse.RankedHit> results,
+    String cursor
+) {
+}
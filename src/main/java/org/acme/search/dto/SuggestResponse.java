@@ -0,0 +1,23 @@
+package org.acme.search.dto;
+
+import java.util.List;
+
+/**
+ * DTO representing autocomplete suggestions across all entity types, best first
+ */
+public record SuggestResponse(
+    String query,
+    List<Suggestion> suggestions
+) {
+
+    /**
+     * One suggested document: its type, ID and title
+     */
+    public record Suggestion(
+        String type,
+        String id,
+        String title,
+        double score
+    ) {
+    }
+}
@@ -1,33 +1,70 @@
 package org.acme.search.dto;
 
-import org.acme.search.dto.football.MatchWrapper;
-import org.acme.search.dto.predictor.GameInstanceWrapper;
-import org.acme.search.dto.classicquiz.ClassicQuizWrapper;
-import org.acme.search.dto.potm.PlayerOfTheMatchWrapper;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 /**
- * DTO representing a unified search response containing multiple types of data
+ * DTO representing a unified search response containing multiple types of data.
+ * Types listed in {@code incompleteTypes} did not answer in time (or failed) and
+ * contribute an empty list. The lists hold the full wrappers of each type, or
+ * {@link WrapperSummary} projections for the summary view. With score ranking, {@code ranked} interleaves the hits of
+ * all types in relevance order; the per-type lists hold the same hits. Without it, {@code ranked} is left out.
  */
 public record UnifiedSearchResponse(
-    List<MatchWrapper> footballMatches,
-    List<GameInstanceWrapper> gameInstances,
-    List<ClassicQuizWrapper> classicQuizzes,
-    List<PlayerOfTheMatchWrapper> playerOfTheMatchGames,
-    int totalResults
+    List<?> footballMatches,
+    List<?> gameInstances,
+    List<?> classicQuizzes,
+    List<?> playerOfTheMatchGames,
+    int totalResults,
+    List<String> incompleteTypes,
+    @JsonInclude(JsonInclude.Include.NON_EMPTY) List<RankedHit> ranked
 ) {
 
+    /**
+     * One hit of the relevance-ordered list: its type, score and document
+     */
+    public record RankedHit(String type, double score, Object document) {
+    }
+
     /**
      * Calculate total results across all types
      */
     public static UnifiedSearchResponse of(
-            List<MatchWrapper> footballMatches,
-            List<GameInstanceWrapper> gameInstances,
-            List<ClassicQuizWrapper> classicQuizzes,
-            List<PlayerOfTheMatchWrapper> playerOfTheMatchGames) {
+            List<?> footballMatches,
+            List<?> gameInstances,
+            List<?> classicQuizzes,
+            List<?> playerOfTheMatchGames) {
+
+        return of(footballMatches, gameInstances, classicQuizzes, playerOfTheMatchGames, List.of());
+    }
+
+    /**
+     * Calculate total results across all types, marking the types whose results are missing
+     */
+    public static UnifiedSearchResponse of(
+            List<?> footballMatches,
+            List<?> gameInstances,
+            List<?> classicQuizzes,
+            List<?> playerOfTheMatchGames,
+            List<String> incompleteTypes) {
+
+        return of(footballMatches, gameInstances, classicQuizzes, playerOfTheMatchGames, incompleteTypes, List.of());
+    }
+
+    /**
+     * Calculate total results across all types, with the hits of all types in relevance order
+     */
+    public static UnifiedSearchResponse of(
+            List<?> footballMatches,
+            List<?> gameInstances,
+            List<?> classicQuizzes,
+            List<?> playerOfTheMatchGames,
+            List<String> incompleteTypes,
+            List<RankedHit> ranked) {
 
         int total = footballMatches.size() + gameInstances.size() + classicQuizzes.size() + playerOfTheMatchGames.size();
 
-        return new UnifiedSearchResponse(footballMatches, gameInstances, classicQuizzes, playerOfTheMatchGames, total);
+        return new UnifiedSearchResponse(footballMatches, gameInstances, classicQuizzes, playerOfTheMatchGames, total, incompleteTypes, ranked);
     }
 }
@@ -0,0 +1,16 @@
+package org.acme.search.dto;
+
+import java.util.List;
+
+/**
+ * Lean projection of any wrapper: its search fields without the {@code data} payload
+ */
+public record WrapperSummary(
+    String id,
+    String searchTitle,
+    String searchDescription,
+    List<String> tags,
+    List<String> flags,
+    List<String> entityIds
+) {
+}
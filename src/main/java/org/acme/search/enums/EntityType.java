@@ -0,0 +1,70 @@
+package org.acme.search.enums;
+
+import org.acme.search.dto.classicquiz.ClassicQuizWrapper;
+import org.acme.search.dto.football.MatchWrapper;
+import org.acme.search.dto.potm.PlayerOfTheMatchWrapper;
+import org.acme.search.dto.predictor.GameInstanceWrapper;
+
+/**
+ * Enum representing the searchable entity types and the Elasticsearch index backing each of them
+ */
+public enum EntityType {
+    MATCHES("matches", "football_matches", MatchWrapper.class),
+    PREDICTIONS("predictions", "predictions", GameInstanceWrapper.class),
+    QUIZ_GAMES("quiz-games", "quiz_games", ClassicQuizWrapper.class),
+    PLAYER_GAMES("player-games", "player_games", PlayerOfTheMatchWrapper.class);
+
+    private final String name;
+    private final String index;
+    private final Class<?> wrapperClass;
+
+    EntityType(String name, String index, Class<?> wrapperClass) {
+        this.name = name;
+        this.index = index;
+        this.wrapperClass = wrapperClass;
+    }
+
+    /**
+     * Type name as used by the REST API
+     * @return the type name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Name of the Elasticsearch index holding documents of this type
+     * @return the index name
+     */
+    public String getIndex() {
+        return index;
+    }
+
+    /**
+     * Wrapper class the documents of this type are stored as
+     * @return the wrapper class
+     */
+    public Class<?> getWrapperClass() {
+        return wrapperClass;
+    }
+
+    /**
+     * Parse entity type from string, case insensitive
+     * @param type the type string
+     * @return the EntityType enum value
+     * @throws IllegalArgumentException if type is not recognized
+     */
+    public static EntityType fromString(String type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Unsupported type: null. Supported types: matches, predictions, quiz-games, player-games");
+        }
+
+        return switch (type.toLowerCase().trim()) {
+            case "matches", "football-matches" -> MATCHES;
+            case "predictions", "game-instances" -> PREDICTIONS;
+            case "quiz-games", "classic-quizzes" -> QUIZ_GAMES;
+            case "player-games", "player-of-the-match-games" -> PLAYER_GAMES;
+            default -> throw new IllegalArgumentException("Unsupported type: " + type + ". Supported types: matches, predictions, quiz-games, player-games");
+        };
+    }
+}
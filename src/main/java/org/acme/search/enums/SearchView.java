@@ -0,0 +1,41 @@
+package org.acme.search.enums;
+
+/**
+ * Enum representing how much of each search hit is returned
+ */
+public enum SearchView {
+    /**
+     * The whole wrapper, including the type-specific {@code data} payload (default)
+     */
+    FULL,
+
+    /**
+     * Only the wrapper's search fields (id, title, description, tags, flags, entity IDs),
+     * for list views. {@code data} is not even read from Elasticsearch.
+     */
+    SUMMARY;
+
+    /**
+     * Default view
+     */
+    public static final SearchView DEFAULT = FULL;
+
+    /**
+     * Parse a view from string, case insensitive
+     * @param view the view string
+     * @return the SearchView enum value
+     * @throws IllegalArgumentException if view is not recognized
+     */
+    public static SearchView fromString(String view) {
+        if (view == null || view.trim().isEmpty()) {
+            return DEFAULT;
+        }
+
+        return switch (view.toUpperCase().trim()) {
+            case "FULL" -> FULL;
+            case "SUMMARY" -> SUMMARY;
+            default -> throw new IllegalArgumentException("Unknown view: " + view +
+                ". Supported views: full, summary");
+        };
+    }
+}
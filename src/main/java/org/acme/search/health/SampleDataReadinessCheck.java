@@ -0,0 +1,36 @@
+package org.acme.search.health;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.search.service.DataInitializationService;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Reports ready once sample data initialization has finished.
+ *
+ * A failed initialization does not keep the application out of service; it runs without
+ * sample data, as before, and the failure is visible in the check data.
+ */
+@Readiness
+@ApplicationScoped
+public class SampleDataReadinessCheck implements HealthCheck {
+
+    @Inject
+    DataInitializationService dataInitializationService;
+
+    @Override
+    public HealthCheckResponse call() {
+        DataInitializationService.State state = dataInitializationService.state();
+        boolean ready = switch (state) {
+            case READY, DISABLED, FAILED -> true;
+            case STARTING, WAITING_FOR_CLUSTER, LOADING -> false;
+        };
+        return HealthCheckResponse.named("sample-data")
+            .status(ready)
+            .withData("state", state.name())
+            .withData("detail", String.valueOf(dataInitializationService.detail()))
+            .build();
+    }
+}
@@ -0,0 +1,105 @@
+package org.acme.search.resource;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.acme.search.enums.SearchMode;
+import org.acme.search.service.SearchService;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Non-blocking variant of {@link SearchResource}. Requests are served on the event loop and
+ * no thread is held while Elasticsearch is working on a search.
+ */
+@Path("/api/reactive")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class ReactiveSearchResource {
+
+    @Inject
+    SearchService searchService;
+
+    /**
+     * Unified search endpoint for all entity types, same parameters as GET /api/search
+     * GET /api/reactive/search?type=matches&q=searchTerm&size=10&mode=case_insensitive
+     * GET /api/reactive/search?type=matches&id=1
+     * GET /api/reactive/search?q=searchTerm&size=10 (searches all types)
+     */
+    @GET
+    @Path("/search")
+    public Uni<Response> unifiedSearch(
+            @QueryParam("type") String type,
+            @QueryParam("id") String idStr,
+            @QueryParam("q") String query,
+            @QueryParam("size") @DefaultValue("10") int size,
+            @QueryParam("mode") String modeStr) {
+
+        // Parse search mode
+        SearchMode mode;
+        try {
+            mode = SearchMode.fromString(modeStr);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+
+        // If no type is specified, search across all types
+        if (type == null || type.trim().isEmpty()) {
+            // ID-based search requires a type
+            if (idStr != null && !idStr.trim().isEmpty()) {
+                return badRequest("ID-based search requires 'type' parameter. Supported types: matches, predictions, quiz-games, player-games");
+            }
+
+            return searchService.searchAllTypesUni(query, size, mode)
+                    .onItem().transform(result -> Response.ok(result).build())
+                    .onFailure().recoverWithItem(e -> Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                            .entity(Map.of("error", "Failed to search across all types: " + e.getMessage()))
+                            .build());
+        }
+
+        Long id = null;
+        if (idStr != null && !idStr.trim().isEmpty()) {
+            try {
+                id = Long.parseLong(idStr);
+            } catch (NumberFormatException e) {
+                return badRequest("Invalid ID format: " + idStr);
+            }
+        }
+
+        Uni<Object> search;
+        try {
+            search = searchService.unifiedSearchUni(type, id, query, size, mode);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+
+        Long requestedId = id;
+        return search
+                .onItem().transform(result -> {
+                    // Handle Optional results (when searching by ID)
+                    if (result instanceof Optional<?> optional) {
+                        if (optional.isPresent()) {
+                            return Response.ok(optional.get()).build();
+                        }
+                        return Response.status(Response.Status.NOT_FOUND)
+                                .entity(Map.of("error", type + " with ID " + requestedId + " not found"))
+                                .build();
+                    }
+
+                    // Handle List results (when searching by query)
+                    return Response.ok(result).build();
+                })
+                .onFailure().recoverWithItem(e -> Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(Map.of("error", "Failed to search " + type + ": " + e.getMessage()))
+                        .build());
+    }
+
+    private static Uni<Response> badRequest(String message) {
+        return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", message))
+                .build());
+    }
+}
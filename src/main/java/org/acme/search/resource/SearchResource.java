@@ -1,12 +1,20 @@
 package org.acme.search.resource;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.acme.search.dto.BatchLookupRequest;
+import org.acme.search.dto.BatchLookupResponse;
 import org.acme.search.dto.UnifiedSearchResponse;
+import org.acme.search.service.EntityDictionary;
+import org.acme.search.service.SearchFilters;
 import org.acme.search.service.SearchService;
+import org.acme.search.enums.EntityType;
 import org.acme.search.enums.SearchMode;
+import org.acme.search.enums.SearchView;
 
 import java.util.Map;
 import java.util.Optional;
@@ -19,14 +27,31 @@ import java.util.Optional;
 @Consumes(MediaType.APPLICATION_JSON)
 public class SearchResource {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final String NDJSON = "application/x-ndjson";
+
     @Inject
     SearchService searchService;
 
+    @Inject
+    EntityDictionary entityDictionary;
+
     /**
      * Unified search endpoint for all entity types
      * GET /api/search?type=matches&q=searchTerm&size=10&mode=case_insensitive
      * GET /api/search?type=matches&id=1
      * GET /api/search?q=searchTerm&size=10&mode=full_match (searches all types)
+     * GET /api/search?type=predictions&q=searchTerm&view=summary (search fields only, without data)
+     * GET /api/search?type=matches&status=live&competitionId=fb:c:3000&kickoffFrom=2025-06-01&kickoffTo=2025-06-07
+     *
+     * Filters (comma separated values match any of them; all given filters must match):
+     * - status: match or game status, e.g. finished, scheduled or active
+     * - gameType: game type of predictions and quiz games, e.g. top_x
+     * - competitionId: competition ids
+     * - flags: wrapper flags
+     * - kickoffFrom/kickoffTo: match kickoff range, ISO-8601 dates (whole days, UTC) or date-times
+     * Filters do not affect scoring; a filter on a field a type does not have excludes that type.
      *
      * Search modes:
      * - case_insensitive (default): Case insensitive partial matching
@@ -40,12 +65,23 @@ public class SearchResource {
             @QueryParam("id") String idStr,
             @QueryParam("q") String query,
             @QueryParam("size") @DefaultValue("10") int size,
-            @QueryParam("mode") String modeStr) {
+            @QueryParam("mode") String modeStr,
+            @QueryParam("view") String viewStr,
+            @QueryParam("status") String status,
+            @QueryParam("gameType") String gameType,
+            @QueryParam("competitionId") String competitionId,
+            @QueryParam("flags") String flags,
+            @QueryParam("kickoffFrom") String kickoffFrom,
+            @QueryParam("kickoffTo") String kickoffTo) {
 
-        // Parse search mode
+        // Parse search mode, view and filters
         SearchMode mode;
+        SearchView view;
+        SearchFilters filters;
         try {
             mode = SearchMode.fromString(modeStr);
+            view = SearchView.fromString(viewStr);
+            filters = SearchFilters.parse(status, gameType, competitionId, flags, kickoffFrom, kickoffTo);
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(Map.of("error", e.getMessage()))
@@ -63,7 +99,7 @@ public class SearchResource {
 
             // Search across all types
             try {
-                UnifiedSearchResponse result = searchService.searchAllTypes(query, size, mode);
+                UnifiedSearchResponse result = searchService.searchAllTypes(query, size, mode, view, filters);
                 return Response.ok(result).build();
             } catch (Exception e) {
                 return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -84,7 +120,7 @@ public class SearchResource {
                 }
             }
 
-            Object result = searchService.unifiedSearch(type, id, query, size, mode);
+            Object result = searchService.unifiedSearch(type, id, query, size, mode, view, filters);
 
             // Handle Optional results (when searching by ID)
             if (result instanceof Optional<?> optional) {
@@ -111,6 +147,145 @@ public class SearchResource {
         }
     }
 
+    /**
+     * Unified search on a virtual thread instead of a worker thread, same parameters as GET /api/search
+     * GET /api/vt/search?type=matches&q=searchTerm&size=10
+     */
+    @GET
+    @Path("/vt/search")
+    @RunOnVirtualThread
+    public Response unifiedSearchOnVirtualThread(
+            @QueryParam("type") String type,
+            @QueryParam("id") String idStr,
+            @QueryParam("q") String query,
+            @QueryParam("size") @DefaultValue("10") int size,
+            @QueryParam("mode") String modeStr,
+            @QueryParam("view") String viewStr,
+            @QueryParam("status") String status,
+            @QueryParam("gameType") String gameType,
+            @QueryParam("competitionId") String competitionId,
+            @QueryParam("flags") String flags,
+            @QueryParam("kickoffFrom") String kickoffFrom,
+            @QueryParam("kickoffTo") String kickoffTo) {
+        return unifiedSearch(type, idStr, query, size, modeStr, viewStr, status, gameType, competitionId, flags, kickoffFrom, kickoffTo);
+    }
+
+    /**
+     * Cursor-paged search of one type, or of all types when no type is given
+     * GET /api/search/page?type=matches&q=searchTerm&size=20&mode=case_insensitive
+     * GET /api/search/page?cursor=...
+     *
+     * Each page returns a cursor for the next one (null on the last page). With a cursor,
+     * the other parameters are taken from it and ignored.
+     */
+    @GET
+    @Path("/search/page")
+    public Response searchPage(
+            @QueryParam("type") String type,
+            @QueryParam("q") String query,
+            @QueryParam("size") @DefaultValue("10") int size,
+            @QueryParam("mode") String modeStr,
+            @QueryParam("cursor") String cursor) {
+        try {
+            if (cursor != null && !cursor.isBlank()) {
+                return Response.ok(searchService.nextPage(cursor)).build();
+            }
+            if (size < 1 || size > SearchService.MAX_PAGE_SIZE) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(Map.of("error", "Size must be between 1 and " + SearchService.MAX_PAGE_SIZE))
+                        .build();
+            }
+            return Response.ok(searchService.searchPage(type, query, size, SearchMode.fromString(modeStr))).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("error", "Failed to fetch page: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    /**
+     * Stream every document of a type that matches the query as NDJSON, one wrapper per line
+     * GET /api/export?type=predictions&q=searchTerm&mode=case_insensitive
+     *
+     * Documents are written page by page as they arrive from Elasticsearch, so exports of any
+     * size use constant memory. If Elasticsearch fails midway the response is cut off.
+     */
+    @GET
+    @Path("/export")
+    @Produces({NDJSON, MediaType.APPLICATION_JSON})
+    public Response export(
+            @QueryParam("type") String type,
+            @QueryParam("q") String query,
+            @QueryParam("mode") String modeStr) {
+        EntityType entityType;
+        SearchMode mode;
+        try {
+            if (type == null || type.isBlank()) {
+                throw new IllegalArgumentException("Query parameter 'type' is required. Supported types: matches, predictions, quiz-games, player-games");
+            }
+            entityType = EntityType.fromString(type);
+            mode = SearchMode.fromString(modeStr);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+        }
+
+        StreamingOutput body = output -> searchService.export(entityType, query, mode, output);
+        return Response.ok(body, NDJSON).build();
+    }
+
+    /**
+     * Batch lookup of documents by type and ID with a single round trip
+     * POST /api/search/ids
+     * {"items": [{"type": "matches", "id": "fb:m:1000"}, {"type": "predictions", "id": "4000"}]}
+     *
+     * Results are returned in request order; missing documents have "found": false.
+     */
+    @POST
+    @Path("/search/ids")
+    public Response findByIds(BatchLookupRequest request) {
+        if (request == null || request.items() == null || request.items().isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Request body must contain a non-empty 'items' array"))
+                    .build();
+        }
+        if (request.items().size() > MAX_BATCH_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "At most " + MAX_BATCH_SIZE + " items can be looked up at once"))
+                    .build();
+        }
+
+        try {
+            BatchLookupResponse result = searchService.findByIds(request.items());
+            return Response.ok(result).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("error", "Failed to look up documents: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    /**
+     * Batch lookup on a virtual thread instead of a worker thread
+     * POST /api/vt/search/ids
+     */
+    @POST
+    @Path("/vt/search/ids")
+    @RunOnVirtualThread
+    public Response findByIdsOnVirtualThread(BatchLookupRequest request) {
+        return findByIds(request);
+    }
+
     /**
      * Get available search modes
      * GET /api/search/modes
@@ -147,4 +322,87 @@ public class SearchResource {
         )).build();
     }
 
+    /**
+     * Get search result cache, request coalescing and entity dictionary statistics
+     * GET /api/search/stats
+     */
+    @GET
+    @Path("/search/stats")
+    public Response getSearchStats() {
+        return Response.ok(Map.of(
+                "cache", searchService.getCacheStats(),
+                "coalescing", searchService.getCoalescingStats(),
+                "dictionary", entityDictionary.stats())).build();
+    }
+
+    /**
+     * Teams and competitions whose name, or a word of it, starts with the prefix.
+     * Answered from memory, without calling Elasticsearch.
+     * GET /api/entities?prefix=barc&size=10
+     */
+    @GET
+    @Path("/entities")
+    public Response lookupEntities(
+            @QueryParam("prefix") String prefix,
+            @QueryParam("size") @DefaultValue("10") int size) {
+        if (prefix == null || prefix.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Query parameter 'prefix' is required"))
+                    .build();
+        }
+        if (size < 1 || size > MAX_SUGGESTIONS) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Size must be between 1 and " + MAX_SUGGESTIONS))
+                    .build();
+        }
+        return Response.ok(Map.of("prefix", prefix, "entities", entityDictionary.lookup(prefix, size))).build();
+    }
+
+    /**
+     * Resolve free text to a single team or competition ("did you mean the team Barcelona?")
+     * GET /api/entities/resolve?q=barca
+     */
+    @GET
+    @Path("/entities/resolve")
+    public Response resolveEntity(@QueryParam("q") String query) {
+        if (query == null || query.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Query parameter 'q' is required"))
+                    .build();
+        }
+        return entityDictionary.resolve(query)
+                .map(entity -> Response.ok(entity).build())
+                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND)
+                        .entity(Map.of("error", "No single team or competition matches '" + query + "'"))
+                        .build());
+    }
+
+    /**
+     * Autocomplete across all entity types; a cheap prefix lookup meant to be called on every keystroke
+     * GET /api/suggest?q=barc&size=10
+     */
+    @GET
+    @Path("/suggest")
+    public Response suggest(
+            @QueryParam("q") String query,
+            @QueryParam("size") @DefaultValue("10") int size) {
+        if (query == null || query.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Query parameter 'q' is required"))
+                    .build();
+        }
+        if (size < 1 || size > MAX_SUGGESTIONS) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Size must be between 1 and " + MAX_SUGGESTIONS))
+                    .build();
+        }
+
+        try {
+            return Response.ok(searchService.suggest(query, size)).build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("error", "Failed to suggest: " + e.getMessage()))
+                    .build();
+        }
+    }
 }
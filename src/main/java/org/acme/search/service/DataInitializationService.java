@@ -1,5 +1,6 @@
 package org.acme.search.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.quarkus.runtime.StartupEvent;
@@ -14,16 +15,22 @@ import org.acme.search.dto.predictor.GameInstance;
 import org.acme.search.dto.predictor.GameInstanceWrapper;
 import org.acme.search.dto.classicquiz.ClassicQuizPublicDto;
 import org.acme.search.dto.classicquiz.ClassicQuizWrapper;
+import org.acme.search.enums.EntityType;
 import org.acme.search.util.PerformanceDataGenerator;
 import org.elasticsearch.client.Request;
+import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.RestClient;
 import org.jboss.logging.Logger;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * Service to initialize sample data in Elasticsearch on startup
@@ -33,15 +40,51 @@ public class DataInitializationService {
 
     private static final Logger LOG = Logger.getLogger(DataInitializationService.class);
 
+    /**
+     * Version of the sample data generators; bump it when they change so existing data is reloaded
+     */
+    static final int DATASET_VERSION = 1;
+
+    private static final String DATASET_META = "dataset";
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+
+    /**
+     * Progress of the sample data initialization
+     */
+    public enum State {
+        STARTING,               // Not started yet
+        WAITING_FOR_CLUSTER,    // Polling the cluster health
+        LOADING,                // Loading sample data
+        READY,                  // Sample data loaded, or already present
+        DISABLED,               // Sample data mode NONE
+        FAILED                  // Loading failed; the application runs without sample data
+    }
+
     @Inject
     RestClient restClient;
 
     @Inject
     SampleDataConfig sampleDataConfig;
 
+    @Inject
+    SearchResultCache searchResultCache;
+
+    @Inject
+    IndexTemplateService indexTemplateService;
+
+    @Inject
+    IndexAliasService indexAliasService;
+
+    @Inject
+    EntityDictionary entityDictionary;
+
     private final ObjectMapper objectMapper;
     private final Random random = new Random();
 
+    private volatile State state = State.STARTING;
+    private volatile String detail = "Starting";
+
     // ID generators for different entity types
     private final AtomicLong matchIdGenerator = new AtomicLong(1000);
     private final AtomicLong teamIdGenerator = new AtomicLong(2000);
@@ -56,77 +99,233 @@ public class DataInitializationService {
     }
 
     void onStart(@Observes StartupEvent ev) {
-        // Use a separate thread to avoid blocking startup
-        new Thread(() -> {
-            try {
-                // Wait a bit for Elasticsearch to be ready (Dev Services need time to start)
-                Thread.sleep(10000);
+        // Load in the background so startup is not blocked; the readiness check reports progress
+        Thread.ofVirtual().name("sample-data-init").start(this::initialize);
+    }
 
-                SampleDataConfig.Mode mode = sampleDataConfig.mode();
-                LOG.infof("Sample data mode: %s", mode);
+    /**
+     * Current initialization state
+     */
+    public State state() {
+        return state;
+    }
 
-                if (mode == SampleDataConfig.Mode.NONE) {
-                    LOG.info("Sample data loading is disabled");
-                    return;
-                }
+    /**
+     * Human readable detail of the current state
+     */
+    public String detail() {
+        return detail;
+    }
 
-                LOG.info("Initializing sample data in Elasticsearch...");
-                initializeSampleData(mode);
-                LOG.info("Sample data initialization completed.");
-            } catch (Exception e) {
-                LOG.warn("Failed to initialize sample data: " + e.getMessage());
-                LOG.info("Application will continue without sample data. Elasticsearch might not be available.");
+    private void initialize() {
+        try {
+            SampleDataConfig.Mode mode = sampleDataConfig.mode();
+            LOG.infof("Sample data mode: %s", mode);
+
+            if (mode == SampleDataConfig.Mode.NONE) {
+                LOG.info("Sample data loading is disabled");
+                update(State.DISABLED, "Sample data loading is disabled");
+                return;
             }
-        }).start();
+
+            update(State.WAITING_FOR_CLUSTER, "Waiting for Elasticsearch");
+            awaitCluster();
+
+            String fingerprint = fingerprint(mode, recordsPerType(mode));
+            if (!sampleDataConfig.forceReload() && isLoaded(fingerprint)) {
+                LOG.infof("Sample data is unchanged (%s), skipping the load", fingerprint);
+                rebuildDictionary();
+                update(State.READY, "Unchanged: " + fingerprint);
+                return;
+            }
+
+            LOG.info("Initializing sample data in Elasticsearch...");
+            update(State.LOADING, "Loading " + fingerprint);
+            initializeSampleData(mode, fingerprint);
+            rebuildDictionary();
+            update(State.READY, "Loaded: " + fingerprint);
+            LOG.info("Sample data initialization completed.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            update(State.FAILED, "Interrupted");
+        } catch (Exception e) {
+            LOG.warn("Failed to initialize sample data: " + e.getMessage());
+            LOG.info("Application will continue without sample data. Elasticsearch might not be available.");
+            update(State.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the in-process team/competition dictionary from the published matches
+     */
+    private void rebuildDictionary() {
+        try {
+            entityDictionary.rebuild();
+        } catch (IOException e) {
+            LOG.warn("Could not build the entity dictionary: " + e.getMessage());
+        }
     }
 
-    private void initializeSampleData(SampleDataConfig.Mode mode) throws Exception {
-        // Clean up existing indices to ensure fresh start with wrapper structure
-        LOG.info("Cleaning up existing indices...");
-        cleanupIndices();
+    private void update(State state, String detail) {
+        this.detail = detail;
+        this.state = state;
+    }
 
-        switch (mode) {
-            case BASIC -> {
-                LOG.info("✓ Loading BASIC sample data (wrapper objects only)...");
-                createBasicSampleData();
-                LOG.info("✓ BASIC sample data loading completed");
+    /**
+     * Poll the cluster health until it is at least yellow, backing off between attempts
+     */
+    private void awaitCluster() throws IOException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        long deadline = System.nanoTime() + sampleDataConfig.clusterWaitTimeout().toNanos();
+        long backoffMillis = INITIAL_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            Request health = new Request("GET", "/_cluster/health");
+            health.addParameter("wait_for_status", "yellow");
+            health.addParameter("timeout", "5s");
+            try {
+                // Answers 408 when the status is not reached within the timeout
+                restClient.performRequest(health);
+                LOG.infof("✓ Elasticsearch is ready after %d attempt(s) in: %d ms", attempt,
+                    System.currentTimeMillis() - startTime);
+                return;
+            } catch (IOException e) {
+                if (System.nanoTime() - deadline >= 0) {
+                    throw new IOException("Elasticsearch not ready after " + sampleDataConfig.clusterWaitTimeout(), e);
+                }
+                LOG.debugf("Elasticsearch not ready yet (attempt %d): %s", attempt, e.getMessage());
+                update(State.WAITING_FOR_CLUSTER, "Waiting for Elasticsearch (attempt " + attempt + ")");
+                Thread.sleep(backoffMillis);
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
             }
-            case PERFORMANCE_SMALL -> {
-                LOG.info("Loading performance test data (small)...");
-                int recordsPerType = Math.max(1, sampleDataConfig.recordsPerType());
-                createPerformanceData(recordsPerType);
+        }
+    }
+
+    /**
+     * Identifies a dataset: the mode, the number of records per type and the versions of
+     * the generators and the index mappings
+     */
+    static String fingerprint(SampleDataConfig.Mode mode, int recordsPerType) {
+        return "mode=" + mode + ";records=" + recordsPerType + ";generator=" + DATASET_VERSION
+            + ";template=" + IndexTemplateService.TEMPLATE_VERSION;
+    }
+
+    /**
+     * Whether every alias points at an index that was completely loaded with the given dataset
+     */
+    private boolean isLoaded(String fingerprint) throws IOException {
+        JsonNode mappings;
+        try (InputStream content = restClient.performRequest(new Request("GET", "/" + aliasList() + "/_mapping"))
+                .getEntity().getContent()) {
+            // Keyed by the physical indices behind the aliases
+            mappings = objectMapper.readTree(content);
+        } catch (ResponseException e) {
+            if (e.getResponse().getStatusLine().getStatusCode() == 404) {
+                return false;
             }
-            case PERFORMANCE_LARGE -> {
-                LOG.info("Loading performance test data (large)...");
-                createPerformanceData(250_000); // 1M total records (250k per type)
+            throw e;
+        }
+
+        if (mappings.size() != EntityType.values().length) {
+            return false;
+        }
+        for (JsonNode index : mappings) {
+            if (!fingerprint.equals(index.path("mappings").path("_meta").path(DATASET_META).asText(null))) {
+                return false;
             }
-            default -> {
-                LOG.warn("Unknown sample data mode: " + mode + ", falling back to BASIC");
-                createBasicSampleData();
+        }
+        return true;
+    }
+
+    /**
+     * Record the dataset in the index metadata once it is completely loaded
+     */
+    private void markLoaded(Map<EntityType, String> generation, String fingerprint) throws IOException {
+        Request request = new Request("PUT", "/" + String.join(",", generation.values()) + "/_mapping");
+        request.setJsonEntity(objectMapper.createObjectNode()
+            .set("_meta", objectMapper.createObjectNode().put(DATASET_META, fingerprint))
+            .toString());
+        restClient.performRequest(request);
+    }
+
+    private static String aliasList() {
+        return Arrays.stream(EntityType.values()).map(EntityType::getIndex).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Records per type loaded in a mode; BASIC loads a fixed set
+     */
+    private int recordsPerType(SampleDataConfig.Mode mode) {
+        return switch (mode) {
+            case PERFORMANCE_SMALL -> Math.max(1, sampleDataConfig.recordsPerType());
+            case PERFORMANCE_LARGE -> 250_000; // 1M total records (250k per type)
+            default -> 0;
+        };
+    }
+
+    /**
+     * Load the dataset into a new index generation and switch the aliases to it once it is
+     * complete; searches keep using the previous generation until then
+     */
+    private void initializeSampleData(SampleDataConfig.Mode mode, String fingerprint) throws Exception {
+        // Install the mappings before any index is created
+        indexTemplateService.installTemplates();
+
+        Map<EntityType, String> generation = indexAliasService.createGeneration();
+        try {
+            switch (mode) {
+                case BASIC -> {
+                    LOG.info("✓ Loading BASIC sample data (wrapper objects only)...");
+                    createBasicSampleData(generation);
+                    LOG.info("✓ BASIC sample data loading completed");
+                }
+                case PERFORMANCE_SMALL -> {
+                    LOG.info("Loading performance test data (small)...");
+                    createPerformanceData(recordsPerType(mode), generation);
+                }
+                case PERFORMANCE_LARGE -> {
+                    LOG.info("Loading performance test data (large)...");
+                    createPerformanceData(recordsPerType(mode), generation);
+                }
+                default -> {
+                    LOG.warn("Unknown sample data mode: " + mode + ", falling back to BASIC");
+                    createBasicSampleData(generation);
+                }
             }
+            markLoaded(generation, fingerprint);
+            indexAliasService.publish(generation);
+        } catch (Exception e) {
+            indexAliasService.discard(generation);
+            throw e;
         }
+
+        // Searches now see the new generation
+        searchResultCache.invalidateAll();
     }
 
-    private void createBasicSampleData() throws Exception {
+    private void createBasicSampleData(Map<EntityType, String> generation) throws Exception {
         // Create sample football matches
-        createSampleMatches();
+        createSampleMatches(generation.get(EntityType.MATCHES));
 
         // Create sample predictions
-        createSamplePredictions();
+        createSamplePredictions(generation.get(EntityType.PREDICTIONS));
 
         // Create sample quiz games
-        createSampleQuizGames();
+        createSampleQuizGames(generation.get(EntityType.QUIZ_GAMES));
 
         // Create sample player games
-        createSamplePlayerGames();
+        createSamplePlayerGames(generation.get(EntityType.PLAYER_GAMES));
+
+        // Make the documents searchable before the generation is published
+        restClient.performRequest(new Request("POST", "/" + String.join(",", generation.values()) + "/_refresh"));
     }
 
-    private void createPerformanceData(int recordsPerType) throws Exception {
-        PerformanceDataGenerator generator = new PerformanceDataGenerator(restClient);
-        generator.generatePerformanceData(recordsPerType);
+    private void createPerformanceData(int recordsPerType, Map<EntityType, String> generation) throws Exception {
+        PerformanceDataGenerator generator = new PerformanceDataGenerator(restClient, sampleDataConfig.bulk());
+        // The generator refreshes the indices once it is done
+        generator.generatePerformanceData(recordsPerType, generation);
     }
 
-    private void createSampleMatches() throws Exception {
+    private void createSampleMatches(String index) throws Exception {
         // Generate IDs for teams and competitions
         String barcelonaId = generateTeamId();
         String realMadridId = generateTeamId();
@@ -282,13 +481,13 @@ public class DataInitializationService {
         LOG.info("✓ Created 3 SimpleMatchWrapper objects");
 
         LOG.info("Indexing football matches as wrapper objects...");
-        indexDocument("football_matches", match1Id, wrapper1);
-        indexDocument("football_matches", match2Id, wrapper2);
-        indexDocument("football_matches", match3Id, wrapper3);
+        indexDocument(index, match1Id, wrapper1);
+        indexDocument(index, match2Id, wrapper2);
+        indexDocument(index, match3Id, wrapper3);
         LOG.info("✓ Indexed 3 football matches as wrapper objects");
     }
 
-    private void createSamplePredictions() throws Exception {
+    private void createSamplePredictions(String index) throws Exception {
         // Generate random match IDs (assuming they exist from previous matches)
         Long matchId1 = 1000L + random.nextInt(100);
         Long matchId2 = 1000L + random.nextInt(100);
@@ -305,11 +504,11 @@ public class DataInitializationService {
 
         for (GameInstance prediction : predictions) {
             GameInstanceWrapper wrapper = GameInstanceWrapper.of(prediction);
-            indexDocument("predictions", prediction.id().toString(), wrapper);
+            indexDocument(index, prediction.id().toString(), wrapper);
         }
     }
 
-    private void createSampleQuizGames() throws Exception {
+    private void createSampleQuizGames(String index) throws Exception {
         List<ClassicQuizPublicDto> quizGames = List.of(
             new ClassicQuizPublicDto(generateQuizId(), "Football Trivia", "Test your football knowledge",
                 List.of("Who won the 2022 World Cup?", "Which team has won the most Champions League titles?"),
@@ -323,11 +522,11 @@ public class DataInitializationService {
 
         for (ClassicQuizPublicDto quiz : quizGames) {
             ClassicQuizWrapper wrapper = ClassicQuizWrapper.of(quiz);
-            indexDocument("quiz_games", quiz.id().toString(), wrapper);
+            indexDocument(index, quiz.id().toString(), wrapper);
         }
     }
 
-    private void createSamplePlayerGames() throws Exception {
+    private void createSamplePlayerGames(String index) throws Exception {
         // Generate random match IDs (assuming they exist from previous matches)
         Long matchId1 = 1000L + random.nextInt(100);
         Long matchId2 = 1000L + random.nextInt(100);
@@ -345,7 +544,7 @@ public class DataInitializationService {
 
         for (PlayerOfTheMatch game : playerGames) {
             PlayerOfTheMatchWrapper wrapper = PlayerOfTheMatchWrapper.of(game);
-            indexDocument("player_games", game.id().toString(), wrapper);
+            indexDocument(index, game.id().toString(), wrapper);
         }
     }
 
@@ -388,44 +587,4 @@ public class DataInitializationService {
     private Long generatePlayerGameId() {
         return playerGameIdGenerator.getAndIncrement();
     }
-
-    /**
-     * Clean up existing indices to ensure fresh start with wrapper structure
-     */
-    private void cleanupIndices() {
-        String[] indices = {"football_matches", "predictions", "quiz_games", "player_games"};
-
-        LOG.info("Starting index cleanup to ensure wrapper structure...");
-
-        for (String index : indices) {
-            try {
-                // Try to delete the index completely
-                Request deleteRequest = new Request("DELETE", "/" + index);
-                restClient.performRequest(deleteRequest);
-                LOG.info("✓ Deleted index: " + index);
-            } catch (Exception e) {
-                // Index might not exist, which is fine
-                LOG.debug("Could not delete index " + index + ": " + e.getMessage());
-            }
-        }
-
-        // Wait longer for deletions to complete and cluster to stabilize
-        try {
-            LOG.info("Waiting for index deletions to complete...");
-            Thread.sleep(3000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        // Also try to clear any cached data
-        try {
-            Request clearCacheRequest = new Request("POST", "/_cache/clear");
-            restClient.performRequest(clearCacheRequest);
-            LOG.info("✓ Cleared Elasticsearch cache");
-        } catch (Exception e) {
-            LOG.debug("Could not clear cache: " + e.getMessage());
-        }
-
-        LOG.info("Index cleanup completed");
-    }
 }
@@ -0,0 +1,310 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.search.enums.EntityType;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * In-process prefix dictionary of team and competition names.
+ *
+ * The names of all indexed matches are normalized (lower case, accents removed) and kept
+ * in one sorted array; a lookup is a binary search for the first key with the prefix
+ * followed by a short scan. Every word of a name is a key too, so "mad" finds
+ * "Real Madrid". The dictionary is immutable: {@link #rebuild()} builds a new one from
+ * Elasticsearch and swaps it in atomically, so lookups never see a partial dictionary
+ * and never call Elasticsearch.
+ */
+@ApplicationScoped
+public class EntityDictionary {
+
+    private static final Logger LOG = Logger.getLogger(EntityDictionary.class);
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final int SCAN_PAGE_SIZE = 1000;
+
+    /**
+     * Kind of dictionary entity
+     */
+    public enum Kind {
+        TEAM,
+        COMPETITION
+    }
+
+    /**
+     * A team or competition, with its display name
+     */
+    public record Entity(Kind kind, String id, String name) {
+    }
+
+    /**
+     * A name under which an entity can be found
+     */
+    record Term(String text, Entity entity) {
+    }
+
+    /**
+     * Sorted keys and the entity of each key
+     */
+    private record Snapshot(String[] keys, Entity[] entities, int entityCount, long builtAtMillis) {
+        static final Snapshot EMPTY = new Snapshot(new String[0], new Entity[0], 0, 0);
+    }
+
+    @Inject
+    RestClient restClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    /**
+     * Entities with a name, or a word of a name, starting with the prefix
+     */
+    public List<Entity> lookup(String prefix, int limit) {
+        lookups.increment();
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+        Set<Entity> results = new LinkedHashSet<>();
+        for (int i = lowerBound(current.keys(), key); i < current.keys().length && results.size() < limit; i++) {
+            if (!current.keys()[i].startsWith(key)) {
+                break;
+            }
+            results.add(current.entities()[i]);
+        }
+
+        if (!results.isEmpty()) {
+            hits.increment();
+        }
+        return List.copyOf(results);
+    }
+
+    /**
+     * Resolve free text to a single entity: an exact name, or a prefix only one entity has
+     */
+    public Optional<Entity> resolve(String text) {
+        lookups.increment();
+        String key = normalize(text);
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // An exact name wins over a longer name with that prefix
+        Snapshot current = snapshot;
+        Entity match = only(current, key, true);
+        if (match == null) {
+            match = only(current, key, false);
+        }
+
+        if (match != null) {
+            hits.increment();
+        }
+        return Optional.ofNullable(match);
+    }
+
+    /**
+     * Rebuild the dictionary from the team and competition names of all indexed matches
+     */
+    public void rebuild() throws IOException {
+        long startTime = System.currentTimeMillis();
+        // Matches repeat the same few teams, so the distinct names stay small
+        Set<Term> terms = new LinkedHashSet<>();
+
+        Request request = new Request("POST", "/" + EntityType.MATCHES.getIndex() + "/_search");
+        request.addParameter("scroll", "1m");
+        request.setJsonEntity("""
+            {
+              "size": %d,
+              "sort": ["_doc"],
+              "_source": ["data.homeTeam", "data.awayTeam", "data.competition"]
+            }
+            """.formatted(SCAN_PAGE_SIZE));
+        JsonNode page = read(request);
+        String scrollId = page.path("_scroll_id").asText(null);
+        try {
+            while (page.path("hits").path("hits").size() > 0) {
+                for (JsonNode hit : page.path("hits").path("hits")) {
+                    JsonNode data = hit.path("_source").path("data");
+                    addTeam(terms, data.path("homeTeam"));
+                    addTeam(terms, data.path("awayTeam"));
+                    addCompetition(terms, data.path("competition"));
+                }
+
+                Request next = new Request("POST", "/_search/scroll");
+                next.setJsonEntity(objectMapper.createObjectNode()
+                    .put("scroll", "1m")
+                    .put("scroll_id", scrollId)
+                    .toString());
+                page = read(next);
+                scrollId = page.path("_scroll_id").asText(scrollId);
+            }
+        } finally {
+            if (scrollId != null) {
+                Request clear = new Request("DELETE", "/_search/scroll");
+                clear.setJsonEntity(objectMapper.createObjectNode().put("scroll_id", scrollId).toString());
+                try {
+                    restClient.performRequest(clear);
+                } catch (IOException e) {
+                    LOG.debug("Could not clear scroll: " + e.getMessage());
+                }
+            }
+        }
+
+        install(terms);
+        LOG.infof("✓ Entity dictionary rebuilt with %d entities (%d keys) in: %d ms",
+            snapshot.entityCount(), snapshot.keys().length, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Build a dictionary from the given names and swap it in
+     */
+    void install(Collection<Term> terms) {
+        Map<String, Entity> byKey = new LinkedHashMap<>();
+        Set<Entity> entities = new LinkedHashSet<>();
+        for (Term term : terms) {
+            String name = normalize(term.text());
+            if (name.isEmpty()) {
+                continue;
+            }
+            entities.add(term.entity());
+            // The full name, and the name from each later word on
+            byKey.putIfAbsent(name + '\0' + term.entity().kind() + term.entity().id(), term.entity());
+            for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+                String suffix = name.substring(i + 1);
+                if (!suffix.isEmpty()) {
+                    byKey.putIfAbsent(suffix + '\0' + term.entity().kind() + term.entity().id(), term.entity());
+                }
+            }
+        }
+
+        List<Map.Entry<String, Entity>> sorted = new ArrayList<>(byKey.entrySet());
+        sorted.sort(Map.Entry.comparingByKey(Comparator.naturalOrder()));
+        String[] keys = new String[sorted.size()];
+        Entity[] values = new Entity[sorted.size()];
+        for (int i = 0; i < keys.length; i++) {
+            String key = sorted.get(i).getKey();
+            keys[i] = key.substring(0, key.indexOf('\0'));
+            values[i] = sorted.get(i).getValue();
+        }
+
+        snapshot = new Snapshot(keys, values, entities.size(), System.currentTimeMillis());
+        rebuilds.increment();
+    }
+
+    /**
+     * Dictionary size and lookup hit counters
+     */
+    public Map<String, Object> stats() {
+        Snapshot current = snapshot;
+        long lookupCount = lookups.sum();
+        long hitCount = hits.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entities", current.entityCount());
+        stats.put("keys", current.keys().length);
+        stats.put("builtAt", current.builtAtMillis());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("lookups", lookupCount);
+        stats.put("hits", hitCount);
+        stats.put("misses", lookupCount - hitCount);
+        stats.put("hitRatio", lookupCount == 0 ? 0.0 : (double) hitCount / lookupCount);
+        return stats;
+    }
+
+    private static void addTeam(Set<Term> terms, JsonNode team) {
+        String id = team.path("id").asText(null);
+        String name = team.path("name").asText(null);
+        if (id == null || name == null) {
+            return;
+        }
+        Entity entity = new Entity(Kind.TEAM, id, name);
+        terms.add(new Term(name, entity));
+        String shortName = team.path("shortName").asText(null);
+        if (shortName != null) {
+            terms.add(new Term(shortName, entity));
+        }
+    }
+
+    private static void addCompetition(Set<Term> terms, JsonNode competition) {
+        String id = competition.path("id").asText(null);
+        String name = competition.path("name").asText(null);
+        if (id != null && name != null) {
+            terms.add(new Term(name, new Entity(Kind.COMPETITION, id, name)));
+        }
+    }
+
+    private JsonNode read(Request request) throws IOException {
+        try (InputStream content = restClient.performRequest(request).getEntity().getContent()) {
+            return objectMapper.readTree(content);
+        }
+    }
+
+    /**
+     * The single entity whose key equals (or starts with) the given key; null if none or ambiguous
+     */
+    private static Entity only(Snapshot snapshot, String key, boolean exact) {
+        Entity match = null;
+        for (int i = lowerBound(snapshot.keys(), key); i < snapshot.keys().length; i++) {
+            String candidate = snapshot.keys()[i];
+            if (exact ? !candidate.equals(key) : !candidate.startsWith(key)) {
+                break;
+            }
+            if (match != null && !match.equals(snapshot.entities()[i])) {
+                return null;
+            }
+            match = snapshot.entities()[i];
+        }
+        return match;
+    }
+
+    /**
+     * Index of the first key that is not less than the given one
+     */
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return folded.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,207 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.search.enums.EntityType;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Blue/green index generations behind aliases.
+ *
+ * Searches always go to the alias named after the entity type's index ({@code football_matches}).
+ * A reload writes into a new physical generation ({@code football_matches_v3}), and
+ * {@link #publish(Map)} then points all aliases at the new generations in a single atomic
+ * {@code _aliases} call and deletes the previous ones, so searches never see a missing or
+ * half-loaded index.
+ */
+@ApplicationScoped
+public class IndexAliasService {
+
+    private static final Logger LOG = Logger.getLogger(IndexAliasService.class);
+
+    private static final String GENERATION_SEPARATOR = "_v";
+
+    @Inject
+    RestClient restClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Create the next generation of every index. The index templates apply to them, since
+     * they match {@code <alias>*}.
+     * @return physical index per type
+     */
+    public Map<EntityType, String> createGeneration() throws IOException {
+        Map<EntityType, String> generation = new EnumMap<>(EntityType.class);
+        try {
+            for (EntityType type : EntityType.values()) {
+                int next = resolve(type).generations().stream()
+                    .mapToInt(index -> generationOf(type, index)).max().orElse(0) + 1;
+                String index = physicalIndex(type, next);
+                restClient.performRequest(new Request("PUT", "/" + index));
+                generation.put(type, index);
+            }
+        } catch (IOException | RuntimeException e) {
+            discard(generation);
+            throw e;
+        }
+        LOG.infof("Created index generation %s", generation.values());
+        return generation;
+    }
+
+    /**
+     * Warm the new generation, then atomically switch every alias to it and delete older generations
+     * @param generation physical index per type, from {@link #createGeneration()}
+     */
+    public void publish(Map<EntityType, String> generation) throws IOException {
+        warm(generation);
+
+        Map<EntityType, List<String>> previous = new EnumMap<>(EntityType.class);
+        ObjectNode body = objectMapper.createObjectNode();
+        ArrayNode actions = body.putArray("actions");
+        for (Map.Entry<EntityType, String> entry : generation.entrySet()) {
+            String alias = entry.getKey().getIndex();
+            Indices existing = resolve(entry.getKey());
+            List<String> old = new ArrayList<>(existing.generations());
+            old.remove(entry.getValue());
+            previous.put(entry.getKey(), old);
+
+            if (existing.concreteAliasName()) {
+                // Index from before aliases were used, or auto-created by a write to the alias name
+                actions.addObject().putObject("remove_index").put("index", alias);
+            }
+            for (String index : existing.aliased()) {
+                actions.addObject().putObject("remove").put("index", index).put("alias", alias);
+            }
+            actions.addObject().putObject("add")
+                .put("index", entry.getValue())
+                .put("alias", alias)
+                .put("is_write_index", true);
+        }
+
+        Request swap = new Request("POST", "/_aliases");
+        swap.setJsonEntity(body.toString());
+        restClient.performRequest(swap);
+        LOG.infof("✓ Switched aliases to %s", generation.values());
+
+        // The new generation is live; failing to clean up the old ones must not undo that
+        for (List<String> old : previous.values()) {
+            deleteQuietly(old);
+        }
+    }
+
+    /**
+     * Delete a generation that was not published, e.g. after a failed load
+     */
+    public void discard(Map<EntityType, String> generation) {
+        deleteQuietly(new ArrayList<>(generation.values()));
+    }
+
+    /**
+     * Wait until the primaries of the new indices are allocated and run a search on each,
+     * so the first user searches do not pay for opening the new segments
+     */
+    private void warm(Map<EntityType, String> generation) throws IOException {
+        String indices = String.join(",", generation.values());
+        Request health = new Request("GET", "/_cluster/health/" + indices);
+        health.addParameter("wait_for_status", "yellow");
+        health.addParameter("timeout", "30s");
+        restClient.performRequest(health);
+
+        for (String index : generation.values()) {
+            Request search = new Request("POST", "/" + index + "/_search");
+            search.addParameter("request_cache", "false");
+            search.setJsonEntity("{\"size\":1,\"query\":{\"match_all\":{}}}");
+            restClient.performRequest(search);
+        }
+    }
+
+    private void deleteQuietly(List<String> indices) {
+        if (indices.isEmpty()) {
+            return;
+        }
+        try {
+            restClient.performRequest(new Request("DELETE", "/" + String.join(",", indices)));
+            LOG.infof("✓ Deleted index generations %s", indices);
+        } catch (IOException e) {
+            LOG.warnf("Could not delete indices %s: %s", indices, e.getMessage());
+        }
+    }
+
+    /**
+     * Physical indices of a type: its generations, those of them that carry the alias, and
+     * whether a concrete index is named like the alias
+     */
+    private record Indices(List<String> generations, List<String> aliased, boolean concreteAliasName) {
+    }
+
+    private Indices resolve(EntityType type) throws IOException {
+        // A wildcard matches nothing instead of failing when there is no index yet
+        Request request = new Request("GET", "/_resolve/index/" + type.getIndex() + "*");
+        List<String> generations = new ArrayList<>();
+        List<String> aliased = new ArrayList<>();
+        boolean concreteAliasName = false;
+        try (InputStream content = restClient.performRequest(request).getEntity().getContent()) {
+            for (JsonNode index : objectMapper.readTree(content).path("indices")) {
+                String name = index.path("name").asText();
+                if (name.equals(type.getIndex())) {
+                    concreteAliasName = true;
+                } else if (generationOf(type, name) > 0) {
+                    generations.add(name);
+                    for (JsonNode alias : index.path("aliases")) {
+                        if (type.getIndex().equals(alias.asText())) {
+                            aliased.add(name);
+                        }
+                    }
+                }
+            }
+        }
+        return new Indices(generations, aliased, concreteAliasName);
+    }
+
+    /**
+     * Entity type of an alias or of one of its physical generations, e.g. from a hit's {@code _index}
+     */
+    public static Optional<EntityType> typeOf(String index) {
+        for (EntityType type : EntityType.values()) {
+            if (type.getIndex().equals(index) || generationOf(type, index) > 0) {
+                return Optional.of(type);
+            }
+        }
+        return Optional.empty();
+    }
+
+    static String physicalIndex(EntityType type, int generation) {
+        return type.getIndex() + GENERATION_SEPARATOR + generation;
+    }
+
+    /**
+     * Generation number of a physical index of the type, 0 if it is not one
+     */
+    static int generationOf(EntityType type, String index) {
+        String prefix = type.getIndex() + GENERATION_SEPARATOR;
+        if (!index.startsWith(prefix) || index.length() == prefix.length()) {
+            return 0;
+        }
+        for (int i = prefix.length(); i < index.length(); i++) {
+            if (!Character.isDigit(index.charAt(i))) {
+                return 0;
+            }
+        }
+        return Integer.parseInt(index.substring(prefix.length()));
+    }
+}
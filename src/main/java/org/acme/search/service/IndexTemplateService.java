@@ -0,0 +1,249 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.search.enums.EntityType;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Installs the index templates of the wrapper indices.
+ *
+ * All entity types share the wrapper layout, so they share one mapping: the search
+ * fields are analyzed text, {@code tags}/{@code flags}/{@code entityIds} are plain keywords,
+ * and the {@code data} payload is kept in {@code _source} only, since it is never searched.
+ * The exceptions are the team and competition names of matches, which are copied, together
+ * with {@code searchTitle}, into the {@code suggest} autocomplete field, and the data fields
+ * searches filter on. Those differ per type, so each index maps them under the same
+ * {@code filter.*} aliases (e.g. {@code filter.status} is {@code data.status.type} for
+ * matches and {@code data.gameStatus} for player games), and a filter works the same on
+ * every index.
+ * The templates match {@code <index>*}, so they also apply to versioned copies of an index.
+ *
+ * Bump {@link #TEMPLATE_VERSION} whenever the mapping changes; templates that are already
+ * at that version (or newer) are left alone. Existing indices keep their mapping until
+ * they are recreated.
+ */
+@ApplicationScoped
+public class IndexTemplateService {
+
+    private static final Logger LOG = Logger.getLogger(IndexTemplateService.class);
+
+    static final int TEMPLATE_VERSION = 3;
+
+    private static final String TEMPLATE_PREFIX = "search-api-";
+
+    /**
+     * Index template for one index pattern; %1$s is the index name, %2$d the version
+     */
+    private static final String WRAPPER_TEMPLATE = """
+        {
+          "index_patterns": ["%1$s*"],
+          "priority": 100,
+          "version": %2$d,
+          "_meta": {
+            "managed_by": "search-api"
+          },
+          "template": {
+            "settings": {
+              "analysis": {
+                "analyzer": {
+                  "search_text": {
+                    "type": "custom",
+                    "tokenizer": "standard",
+                    "filter": ["lowercase", "asciifolding"]
+                  }
+                },
+                "normalizer": {
+                  "filter_keyword": {
+                    "type": "custom",
+                    "filter": ["lowercase"]
+                  }
+                }
+              }
+            },
+            "mappings": {
+              "dynamic": false,
+              "properties": {
+                "id": {
+                  "type": "text",
+                  "fields": {
+                    "keyword": {
+                      "type": "keyword",
+                      "ignore_above": 256
+                    }
+                  }
+                },
+                "searchTitle": {
+                  "type": "text",
+                  "analyzer": "search_text",
+                  "store": true,
+                  "copy_to": "suggest"
+                },
+                "searchDescription": {
+                  "type": "text",
+                  "analyzer": "search_text"
+                },
+                "tags": {
+                  "type": "keyword"
+                },
+                "flags": {
+                  "type": "keyword"
+                },
+                "entityIds": {
+                  "type": "keyword"
+                },
+                "suggest": {
+                  "type": "search_as_you_type",
+                  "analyzer": "search_text"
+                },
+                "data": {
+                  "type": "object",
+                  "dynamic": false,
+                  "properties": {
+                    "homeTeam": {
+                      "properties": {
+                        "name": {
+                          "type": "keyword",
+                          "index": false,
+                          "doc_values": false,
+                          "copy_to": "suggest"
+                        }
+                      }
+                    },
+                    "awayTeam": {
+                      "properties": {
+                        "name": {
+                          "type": "keyword",
+                          "index": false,
+                          "doc_values": false,
+                          "copy_to": "suggest"
+                        }
+                      }
+                    },
+                    "competition": {
+                      "properties": {
+                        "name": {
+                          "type": "keyword",
+                          "index": false,
+                          "doc_values": false,
+                          "copy_to": "suggest"
+                        }
+                      }
+                    }
+                  }
+                }
+              }
+            }
+          }
+        }
+        """;
+
+    /**
+     * A data field searches filter on, mapped under {@code filter.<name>}
+     *
+     * @param path field path below {@code data}
+     * @param mapping field mapping
+     */
+    private record FilterField(String name, String path, String mapping) {
+    }
+
+    private static final String FILTER_KEYWORD = """
+        {"type": "keyword", "normalizer": "filter_keyword"}
+        """;
+
+    private static final Map<EntityType, List<FilterField>> FILTER_FIELDS = Map.of(
+        EntityType.MATCHES, List.of(
+            new FilterField("status", "status.type", FILTER_KEYWORD),
+            new FilterField("kickoffAt", "kickoffAt", """
+                {"type": "date", "format": "epoch_millis"}
+                """)),
+        EntityType.PREDICTIONS, List.of(
+            new FilterField("status", "status", FILTER_KEYWORD),
+            new FilterField("gameType", "type", FILTER_KEYWORD)),
+        EntityType.QUIZ_GAMES, List.of(
+            new FilterField("status", "status", FILTER_KEYWORD),
+            new FilterField("gameType", "type", FILTER_KEYWORD)),
+        EntityType.PLAYER_GAMES, List.of(
+            new FilterField("status", "gameStatus", FILTER_KEYWORD)));
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Inject
+    RestClient restClient;
+
+    /**
+     * Install or upgrade the templates of all entity types
+     */
+    public void installTemplates() throws IOException {
+        for (EntityType type : EntityType.values()) {
+            installTemplate(type);
+        }
+    }
+
+    private void installTemplate(EntityType type) throws IOException {
+        String name = TEMPLATE_PREFIX + type.getIndex();
+        int installed = installedVersion(name);
+        if (installed >= TEMPLATE_VERSION) {
+            LOG.debugf("Index template %s is up to date (version %d)", name, installed);
+            return;
+        }
+
+        Request request = new Request("PUT", "/_index_template/" + name);
+        request.setJsonEntity(templateFor(type));
+        restClient.performRequest(request);
+        LOG.infof("✓ Installed index template %s (version %d, was %s)", name, TEMPLATE_VERSION,
+            installed < 0 ? "missing" : String.valueOf(installed));
+    }
+
+    /**
+     * Version of an installed template, 0 if it has none and -1 if it does not exist
+     */
+    private int installedVersion(String name) throws IOException {
+        try (InputStream content = restClient.performRequest(new Request("GET", "/_index_template/" + name))
+                .getEntity().getContent()) {
+            JsonNode templates = MAPPER.readTree(content).path("index_templates");
+            return templates.isEmpty() ? -1 : templates.get(0).path("index_template").path("version").asInt(0);
+        } catch (ResponseException e) {
+            if (e.getResponse().getStatusLine().getStatusCode() == 404) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    static String templateFor(EntityType type) {
+        try {
+            ObjectNode template = (ObjectNode) MAPPER.readTree(WRAPPER_TEMPLATE.formatted(type.getIndex(), TEMPLATE_VERSION));
+            ObjectNode properties = (ObjectNode) template.path("template").path("mappings").path("properties");
+            ObjectNode aliases = properties.putObject("filter").putObject("properties");
+            for (FilterField field : FILTER_FIELDS.get(type)) {
+                ObjectNode parent = (ObjectNode) properties.path("data").path("properties");
+                String[] path = field.path().split("\\.");
+                for (int i = 0; i < path.length - 1; i++) {
+                    parent = parent.has(path[i])
+                        ? (ObjectNode) parent.path(path[i]).path("properties")
+                        : parent.putObject(path[i]).putObject("properties");
+                }
+                parent.set(path[path.length - 1], MAPPER.readTree(field.mapping()));
+                aliases.putObject(field.name())
+                    .put("type", "alias")
+                    .put("path", "data." + field.path());
+            }
+            return template.toString();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid index template", e);
+        }
+    }
+}
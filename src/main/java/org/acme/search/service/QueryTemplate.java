@@ -0,0 +1,233 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-compiled Elasticsearch query body.
+ *
+ * The JSON source is minified and split once into UTF-8 literal segments around its
+ * placeholders ({@code {{size}}}, {@code {{query}}} and raw JSON slots such as
+ * {@code {{filter}}}). Rendering only copies those segments and the request values into a
+ * single exactly-sized byte array.
+ */
+public final class QueryTemplate {
+
+    /**
+     * Placeholders a template may contain
+     */
+    public enum Slot {
+        SIZE("{{size}}"),
+        QUERY("{{query}}"),
+        /**
+         * Raw JSON inserted as is, e.g. the filter clauses of a bool query
+         */
+        FILTER("{{filter}}"),
+        /**
+         * Raw JSON: the point in time object of a paged search
+         */
+        PIT("{{pit}}"),
+        /**
+         * Raw JSON: the {@code search_after} member of a paged search with a leading comma, or nothing on the first page
+         */
+        SEARCH_AFTER("{{search_after}}");
+
+        private final String placeholder;
+
+        Slot(String placeholder) {
+            this.placeholder = placeholder;
+        }
+    }
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final byte[][] literals;
+    private final Slot[] slots;
+    private final int literalLength;
+
+    private QueryTemplate(byte[][] literals, Slot[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (byte[] literal : literals) {
+            length += literal.length;
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compile a JSON template. Whitespace outside of string literals is removed, so the
+     * rendered body always fits on one line (as required by _msearch).
+     */
+    public static QueryTemplate compile(String source) {
+        String minified = minify(source);
+
+        List<byte[]> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int next = -1;
+            Slot nextSlot = null;
+            for (Slot slot : Slot.values()) {
+                int index = minified.indexOf(slot.placeholder, position);
+                if (index >= 0 && (next < 0 || index < next)) {
+                    next = index;
+                    nextSlot = slot;
+                }
+            }
+            if (nextSlot == null) {
+                break;
+            }
+            literals.add(minified.substring(position, next).getBytes(StandardCharsets.UTF_8));
+            slots.add(nextSlot);
+            position = next + nextSlot.placeholder.length();
+        }
+        literals.add(minified.substring(position).getBytes(StandardCharsets.UTF_8));
+
+        if (minified.indexOf("{{", position) >= 0) {
+            throw new IllegalArgumentException("Unknown placeholder in query template: " + minified.substring(position));
+        }
+
+        return new QueryTemplate(literals.toArray(byte[][]::new), slots.toArray(Slot[]::new));
+    }
+
+    /**
+     * Copy of this template with an extra top-level field, e.g. a {@code _source} filter
+     * @param name field name
+     * @param json field value as JSON
+     */
+    public QueryTemplate withField(String name, String json) {
+        return withFields("\"" + name + "\":" + json + ",");
+    }
+
+    /**
+     * Copy of this template with extra top-level members, which may contain placeholders
+     * @param members JSON object members, each followed by a comma
+     */
+    public QueryTemplate withFields(String members) {
+        if (literals[0].length == 0 || literals[0][0] != '{') {
+            throw new IllegalStateException("Template is not a JSON object");
+        }
+        QueryTemplate prefix = compile("{" + members);
+        int prefixLast = prefix.literals.length - 1;
+
+        byte[][] combinedLiterals = new byte[prefixLast + literals.length][];
+        System.arraycopy(prefix.literals, 0, combinedLiterals, 0, prefixLast);
+        // The last literal of the members continues with this template's first literal, without its '{'
+        byte[] joint = new byte[prefix.literals[prefixLast].length + literals[0].length - 1];
+        System.arraycopy(prefix.literals[prefixLast], 0, joint, 0, prefix.literals[prefixLast].length);
+        System.arraycopy(literals[0], 1, joint, prefix.literals[prefixLast].length, literals[0].length - 1);
+        combinedLiterals[prefixLast] = joint;
+        System.arraycopy(literals, 1, combinedLiterals, prefixLast + 1, literals.length - 1);
+
+        Slot[] combinedSlots = new Slot[prefix.slots.length + slots.length];
+        System.arraycopy(prefix.slots, 0, combinedSlots, 0, prefix.slots.length);
+        System.arraycopy(slots, 0, combinedSlots, prefix.slots.length, slots.length);
+        return new QueryTemplate(combinedLiterals, combinedSlots);
+    }
+
+    /**
+     * JSON-escape a query string into UTF-8 bytes, ready to be rendered inside a string literal
+     */
+    public static byte[] escape(String query) {
+        return JsonStringEncoder.getInstance().quoteAsUTF8(query == null ? "" : query);
+    }
+
+    /**
+     * Render the template with the given size and already escaped query
+     */
+    public byte[] render(int size, byte[] escapedQuery) {
+        return render(size, escapedQuery, Map.of());
+    }
+
+    /**
+     * Render the template with the given size, already escaped query and raw filter JSON
+     */
+    public byte[] render(int size, byte[] escapedQuery, byte[] filter) {
+        return render(size, escapedQuery, filter.length == 0 ? Map.of() : Map.of(Slot.FILTER, filter));
+    }
+
+    /**
+     * Render the template with the given size, already escaped query and raw JSON per slot;
+     * raw slots without a value render as nothing
+     */
+    public byte[] render(int size, byte[] escapedQuery, Map<Slot, byte[]> raw) {
+        int sizeLength = digits(size);
+        int length = literalLength;
+        for (Slot slot : slots) {
+            length += switch (slot) {
+                case SIZE -> sizeLength;
+                case QUERY -> escapedQuery.length;
+                default -> raw.getOrDefault(slot, EMPTY).length;
+            };
+        }
+
+        byte[] body = new byte[length];
+        int offset = 0;
+        for (int i = 0; i < slots.length; i++) {
+            System.arraycopy(literals[i], 0, body, offset, literals[i].length);
+            offset += literals[i].length;
+            if (slots[i] == Slot.SIZE) {
+                writeInt(size, body, offset, sizeLength);
+                offset += sizeLength;
+            } else {
+                byte[] value = slots[i] == Slot.QUERY ? escapedQuery : raw.getOrDefault(slots[i], EMPTY);
+                System.arraycopy(value, 0, body, offset, value.length);
+                offset += value.length;
+            }
+        }
+        byte[] last = literals[literals.length - 1];
+        System.arraycopy(last, 0, body, offset, last.length);
+        return body;
+    }
+
+    private static int digits(int value) {
+        long remaining = Math.abs((long) value);
+        int count = value < 0 ? 2 : 1;
+        while (remaining >= 10) {
+            remaining /= 10;
+            count++;
+        }
+        return count;
+    }
+
+    private static void writeInt(int value, byte[] target, int offset, int length) {
+        long remaining = Math.abs((long) value);
+        for (int i = offset + length - 1; i >= offset; i--) {
+            target[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        if (value < 0) {
+            target[offset] = '-';
+        }
+    }
+
+    private static String minify(String source) {
+        StringBuilder result = new StringBuilder(source.length());
+        boolean inString = false;
+        boolean escaped = false;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (inString) {
+                result.append(c);
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+                result.append(c);
+            } else if (!Character.isWhitespace(c)) {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package org.acme.search.service;
+
+import org.acme.search.enums.EntityType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Merges per-type search hits into one relevance-ordered top k.
+ *
+ * Each type is searched on its own index, so only a few hits per type are fetched at
+ * first. A type whose last fetched hit still made the top k may have more hits that
+ * belong there; {@link #truncated} names those types so they can be fetched again.
+ */
+final class RankedMerge {
+
+    /**
+     * A hit in the merged list; {@code position} is its rank within its own type
+     */
+    record Entry(EntityType type, int position, SearchResponseParser.ScoredHit hit) {
+    }
+
+    // Best first: higher score, then better rank within its type, then type order
+    private static final Comparator<Entry> BEST_FIRST = Comparator
+        .comparingDouble((Entry entry) -> entry.hit().score()).reversed()
+        .thenComparingInt(Entry::position)
+        .thenComparing(Entry::type);
+
+    private RankedMerge() {
+    }
+
+    /**
+     * Hits to fetch per type in the first round: an even share of k, scaled by the over-fetch factor
+     */
+    static int initialFetchSize(int k, double overFetch, int types) {
+        int share = (int) Math.ceil(k * Math.max(1.0, overFetch) / types);
+        return Math.max(1, Math.min(k, share));
+    }
+
+    /**
+     * The k best hits over all types, best first. Uses a bounded heap whose head is the
+     * worst hit kept so far.
+     */
+    static List<Entry> topK(Map<EntityType, List<SearchResponseParser.ScoredHit>> results, int k) {
+        PriorityQueue<Entry> heap = new PriorityQueue<>(k + 1, BEST_FIRST.reversed());
+        for (Map.Entry<EntityType, List<SearchResponseParser.ScoredHit>> typeResults : results.entrySet()) {
+            List<SearchResponseParser.ScoredHit> hits = typeResults.getValue();
+            for (int i = 0; i < hits.size(); i++) {
+                Entry entry = new Entry(typeResults.getKey(), i, hits.get(i));
+                if (heap.size() < k) {
+                    heap.add(entry);
+                } else if (BEST_FIRST.compare(entry, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(entry);
+                } else {
+                    // Hits of a type come best first, so the rest of this type cannot beat the heap either
+                    break;
+                }
+            }
+        }
+
+        List<Entry> top = new ArrayList<>(heap);
+        top.sort(BEST_FIRST);
+        return top;
+    }
+
+    /**
+     * Types that returned as many hits as were requested and whose last hit is in the top,
+     * so hits they did not return might belong in the top as well
+     */
+    static Set<EntityType> truncated(Map<EntityType, List<SearchResponseParser.ScoredHit>> results,
+                                     Map<EntityType, Integer> requested, List<Entry> top) {
+        Set<EntityType> truncated = EnumSet.noneOf(EntityType.class);
+        for (Entry entry : top) {
+            int fetched = results.get(entry.type()).size();
+            if (fetched == requested.get(entry.type()) && entry.position() == fetched - 1) {
+                truncated.add(entry.type());
+            }
+        }
+        return truncated;
+    }
+}
@@ -0,0 +1,208 @@
+package org.acme.search.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.search.config.SearchConfig;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of identical concurrent searches.
+ *
+ * While a search for an index and body is in flight, every identical search joins it
+ * instead of sending its own request, and all of them receive the same parsed result.
+ * Nothing is kept once the search completes, so this never serves stale results: a caller
+ * only shares a request that started after it asked for the same data at the same
+ * cache generation. The request is only cancelled once every caller waiting for it has
+ * cancelled. The number of distinct in-flight searches is bounded; beyond the
+ * bound, searches simply run on their own.
+ */
+@ApplicationScoped
+public class SearchCoalescer {
+
+    /**
+     * Identity of a search; the generation keeps searches from before and after an index reload apart.
+     * The body is compared by content and never copied.
+     */
+    private record Key(String index, long generation, byte[] body) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key
+                && generation == key.generation
+                && index.equals(key.index)
+                && Arrays.equals(body, key.body);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * index.hashCode() + Long.hashCode(generation)) + Arrays.hashCode(body);
+        }
+
+        @Override
+        public String toString() {
+            return "Key[index=" + index + ", generation=" + generation + ", body=" + body.length + " bytes]";
+        }
+    }
+
+    /**
+     * A search in flight and the callers waiting for it
+     */
+    private static final class Flight {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        // Guarded by the map: only changed inside compute on the flight's key
+        int waiting = 1;
+        volatile CompletableFuture<?> request;
+        volatile boolean abandoned;
+    }
+
+    @Inject
+    SearchConfig searchConfig;
+
+    private final ConcurrentHashMap<Key, Flight> inFlight = new ConcurrentHashMap<>();
+    // Distinct searches in flight; reserved inside compute before a flight is added, so it never exceeds the bound
+    private final AtomicInteger flights = new AtomicInteger();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    /**
+     * Run the search, or join an identical one that is already in flight.
+     *
+     * Every caller gets its own future: cancelling it (e.g. on a deadline) detaches that
+     * caller only and leaves the shared search running for the others. When the last
+     * waiting caller cancels, the future returned by {@code search} is cancelled too, which
+     * aborts the HTTP request.
+     *
+     * @param index index or indices searched
+     * @param generation cache generation the caller read before searching
+     * @param body search request body; used as the key as is, so it must not be modified afterwards
+     * @param search sends the search; only called when no identical search is in flight
+     */
+    public <T> CompletableFuture<T> execute(String index, long generation, byte[] body,
+                                            Supplier<CompletableFuture<T>> search) {
+        calls.increment();
+        SearchConfig.Coalesce config = searchConfig.coalesce();
+        if (!config.enabled()) {
+            executed.increment();
+            return search.get();
+        }
+
+        Key key = new Key(index, generation, body);
+        Flight created = new Flight();
+        Flight flight = inFlight.compute(key, (k, existing) -> {
+            if (existing != null) {
+                existing.waiting++;
+                return existing;
+            }
+            if (flights.incrementAndGet() > config.maxInFlight()) {
+                flights.decrementAndGet();
+                return null;
+            }
+            return created;
+        });
+        if (flight == null) {
+            bypassed.increment();
+            executed.increment();
+            return search.get();
+        }
+        if (flight != created) {
+            coalesced.increment();
+            return join(key, flight);
+        }
+
+        executed.increment();
+        try {
+            CompletableFuture<T> request = search.get();
+            flight.request = request;
+            request.whenComplete((result, failure) -> {
+                // Remove before completing, so callers arriving from now on start a fresh search
+                remove(key, flight);
+                if (failure != null) {
+                    flight.result.completeExceptionally(failure);
+                } else {
+                    flight.result.complete(result);
+                }
+            });
+            if (flight.abandoned) {
+                // Every caller cancelled while the request was being sent
+                request.cancel(true);
+            }
+        } catch (RuntimeException e) {
+            remove(key, flight);
+            flight.result.completeExceptionally(e);
+        }
+        return join(key, flight);
+    }
+
+    /**
+     * A future for one caller of the flight; cancelling it stops the caller from waiting
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> join(Key key, Flight flight) {
+        CompletableFuture<T> caller = (CompletableFuture<T>) flight.result.copy();
+        caller.whenComplete((result, failure) -> {
+            if (caller.isCancelled()) {
+                leave(key, flight);
+            }
+        });
+        return caller;
+    }
+
+    /**
+     * Remove a flight once its request completed, unless every caller already left it
+     */
+    private void remove(Key key, Flight flight) {
+        if (inFlight.remove(key, flight)) {
+            flights.decrementAndGet();
+        }
+    }
+
+    /**
+     * A caller stopped waiting; the last one to leave cancels the request
+     */
+    private void leave(Key key, Flight flight) {
+        inFlight.computeIfPresent(key, (k, current) -> {
+            if (current != flight || --current.waiting > 0) {
+                return current;
+            }
+            current.abandoned = true;
+            flights.decrementAndGet();
+            return null;
+        });
+        if (flight.abandoned) {
+            CompletableFuture<?> request = flight.request;
+            if (request != null) {
+                request.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * In-flight count and how many searches shared another one's request
+     */
+    public Map<String, Object> stats() {
+        long callCount = calls.sum();
+        long coalescedCount = coalesced.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", searchConfig.coalesce().enabled());
+        stats.put("inFlight", flights.get());
+        stats.put("maxInFlight", searchConfig.coalesce().maxInFlight());
+        stats.put("calls", callCount);
+        stats.put("executed", executed.sum());
+        stats.put("coalesced", coalescedCount);
+        stats.put("bypassed", bypassed.sum());
+        stats.put("coalescingRatio", callCount == 0 ? 0.0 : (double) coalescedCount / callCount);
+        return stats;
+    }
+}
@@ -0,0 +1,63 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.acme.search.enums.SearchMode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a paged search, handed to clients as an opaque token.
+ *
+ * The token carries everything needed for the next page: the search itself (type, query,
+ * mode, page size), the point in time it reads from and the sort values of the last hit
+ * returned, so the next page starts right after it.
+ *
+ * @param type API type name, or null for a search across all types
+ * @param pitId point in time the pages are read from
+ * @param searchAfter sort values of the last hit of the previous page
+ */
+record SearchCursor(String type, String query, SearchMode mode, int size, String pitId, ArrayNode searchAfter) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    String encode() {
+        ObjectNode token = MAPPER.createObjectNode();
+        token.put("type", type);
+        token.put("q", query);
+        token.put("mode", mode.name());
+        token.put("size", size);
+        token.put("pit", pitId);
+        token.set("after", searchAfter);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tokens are not signed, so everything taken from one is validated like a request parameter
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    static SearchCursor decode(String token) {
+        try {
+            JsonNode node = MAPPER.readTree(Base64.getUrlDecoder().decode(token));
+            JsonNode after = node.path("after");
+            String pitId = node.path("pit").asText(null);
+            int size = node.path("size").asInt(0);
+            if (pitId == null || !after.isArray() || size < 1 || size > SearchService.MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new SearchCursor(
+                node.path("type").isTextual() ? node.path("type").asText() : null,
+                node.path("q").isTextual() ? node.path("q").asText() : null,
+                SearchMode.valueOf(node.path("mode").asText()),
+                size,
+                pitId,
+                (ArrayNode) after);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
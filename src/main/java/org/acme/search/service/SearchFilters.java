@@ -0,0 +1,153 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+
+/**
+ * Structured filters of a search, applied in filter context.
+ *
+ * Filters narrow down the documents a search matches without taking part in scoring, so
+ * Elasticsearch caches them in its node query cache and reuses them across searches.
+ * A filter matches any of its values and all filters must match. The filter fields are
+ * aliases that every index maps onto its own data (see {@link IndexTemplateService}); a
+ * filter on a field a type does not have, such as {@code gameType} on matches, matches
+ * none of its documents.
+ *
+ * Values are sorted and de-duplicated, so equal filters render the same request body and
+ * share cache entries and in-flight searches.
+ *
+ * @param statuses match or game statuses, lower case
+ * @param gameTypes game types of predictions and quizzes, lower case
+ * @param competitionIds competition ids, matched against the entity ids of a document
+ * @param flags wrapper flags
+ * @param kickoffFrom earliest kickoff in epoch millis, inclusive; null for no lower bound
+ * @param kickoffUntil latest kickoff in epoch millis, exclusive; null for no upper bound
+ */
+public record SearchFilters(List<String> statuses, List<String> gameTypes, List<String> competitionIds,
+                            List<String> flags, Long kickoffFrom, Long kickoffUntil) {
+
+    public static final SearchFilters NONE = new SearchFilters(List.of(), List.of(), List.of(), List.of(), null, null);
+
+    static final String STATUS_FIELD = "filter.status";
+    static final String GAME_TYPE_FIELD = "filter.gameType";
+    static final String KICKOFF_FIELD = "filter.kickoffAt";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final byte[] FILTER_MEMBER = ",\"filter\":".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Parse the filter request parameters; lists are comma separated and dates ISO-8601.
+     * A date without a time covers the whole day (UTC).
+     *
+     * @throws IllegalArgumentException if a date cannot be parsed or the kickoff range is empty
+     */
+    public static SearchFilters parse(String status, String gameType, String competitionId, String flags,
+                                      String kickoffFrom, String kickoffTo) {
+        Long from = parseInstant("kickoffFrom", kickoffFrom, false);
+        Long until = parseInstant("kickoffTo", kickoffTo, true);
+        if (from != null && until != null && from >= until) {
+            throw new IllegalArgumentException("kickoffFrom must be before kickoffTo");
+        }
+        return new SearchFilters(
+            values(status, value -> value.toLowerCase(Locale.ROOT)),
+            values(gameType, value -> value.toLowerCase(Locale.ROOT)),
+            values(competitionId, UnaryOperator.identity()),
+            values(flags, UnaryOperator.identity()),
+            from,
+            until);
+    }
+
+    public boolean isEmpty() {
+        return statuses.isEmpty() && gameTypes.isEmpty() && competitionIds.isEmpty() && flags.isEmpty()
+            && kickoffFrom == null && kickoffUntil == null;
+    }
+
+    /**
+     * The {@code filter} member of a bool query, with a leading comma so it can follow the
+     * other members; empty when there are no filters
+     */
+    byte[] clauses() {
+        if (isEmpty()) {
+            return new byte[0];
+        }
+
+        ArrayNode clauses = MAPPER.createArrayNode();
+        terms(clauses, STATUS_FIELD, statuses);
+        terms(clauses, GAME_TYPE_FIELD, gameTypes);
+        terms(clauses, "entityIds", competitionIds);
+        terms(clauses, "flags", flags);
+        if (kickoffFrom != null || kickoffUntil != null) {
+            ObjectNode range = clauses.addObject().putObject("range").putObject(KICKOFF_FIELD);
+            if (kickoffFrom != null) {
+                range.put("gte", kickoffFrom);
+            }
+            if (kickoffUntil != null) {
+                range.put("lt", kickoffUntil);
+            }
+            range.put("format", "epoch_millis");
+        }
+
+        try {
+            byte[] array = MAPPER.writeValueAsBytes(clauses);
+            byte[] member = Arrays.copyOf(FILTER_MEMBER, FILTER_MEMBER.length + array.length);
+            System.arraycopy(array, 0, member, FILTER_MEMBER.length, array.length);
+            return member;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void terms(ArrayNode clauses, String field, List<String> values) {
+        if (!values.isEmpty()) {
+            ArrayNode terms = clauses.addObject().putObject("terms").putArray(field);
+            values.forEach(terms::add);
+        }
+    }
+
+    private static List<String> values(String list, UnaryOperator<String> normalize) {
+        if (list == null || list.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(list.split(","))
+            .map(String::trim)
+            .filter(value -> !value.isEmpty())
+            .map(normalize)
+            .distinct()
+            .sorted()
+            .toList();
+    }
+
+    /**
+     * Epoch millis of a date or date-time; an upper bound is made exclusive
+     */
+    private static Long parseInstant(String name, String value, boolean upperBound) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String text = value.trim();
+        try {
+            if (text.length() == 10) {
+                LocalDate date = LocalDate.parse(text);
+                return (upperBound ? date.plusDays(1) : date).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            }
+            long millis = OffsetDateTime.parse(text).toInstant().toEpochMilli();
+            return upperBound ? millis + 1 : millis;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value
+                + ". Expected an ISO-8601 date or date-time, e.g. 2025-06-01 or 2025-06-01T18:00:00Z");
+        }
+    }
+}
@@ -0,0 +1,503 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.acme.search.dto.WrapperSummary;
+import org.acme.search.dto.classicquiz.ClassicQuizWrapper;
+import org.acme.search.dto.football.MatchWrapper;
+import org.acme.search.dto.potm.PlayerOfTheMatchWrapper;
+import org.acme.search.dto.predictor.GameInstanceWrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Streaming parser for Elasticsearch responses.
+ *
+ * Walks the response token by token and binds each {@code _source} straight into the
+ * target class with a pre-built {@link ObjectReader}; everything else in the response
+ * is skipped without being materialized.
+ */
+public class SearchResponseParser {
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    public SearchResponseParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        for (Class<?> wrapperClass : List.of(MatchWrapper.class, GameInstanceWrapper.class,
+                ClassicQuizWrapper.class, PlayerOfTheMatchWrapper.class, WrapperSummary.class)) {
+            readers.put(wrapperClass, objectMapper.readerFor(wrapperClass));
+        }
+    }
+
+    /**
+     * Result of one search inside an _msearch response: either hits or an error
+     */
+    public record MultiSearchItem(List<?> hits, String error) {
+        public boolean failed() {
+            return error != null;
+        }
+    }
+
+    /**
+     * Result of one document lookup inside an _mget response: the source, or null when not found
+     */
+    public record MultiGetItem(Object source, String error) {
+        public boolean found() {
+            return source != null;
+        }
+    }
+
+    /**
+     * Hit of a search without {@code _source}: where it is, its score and its stored title
+     */
+    public record TitleHit(String index, String id, double score, String title) {
+    }
+
+    /**
+     * Bound {@code _source} of a hit together with its relevance score
+     */
+    public record ScoredHit(double score, Object source) {
+    }
+
+    /**
+     * Hits of one page of a point-in-time search, and the (possibly updated) point in time
+     */
+    public record Page(String pitId, List<PageHit> hits) {
+    }
+
+    /**
+     * Hit of a paged search: where it is, its bound {@code _source}, score and sort values
+     */
+    public record PageHit(String index, Object source, double score, ArrayNode sort) {
+    }
+
+    /**
+     * Summary of a point-in-time page whose hits were written out: how many, the sort values
+     * of the last one and the (possibly updated) point in time
+     */
+    public record StreamedPage(String pitId, int hits, ArrayNode lastSort) {
+    }
+
+    /**
+     * Parse the {@code hits.hits[]._source} documents of a _search response
+     */
+    public <T> List<T> parseSearchHits(InputStream content, Class<T> clazz) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(content)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            ObjectReader reader = readerFor(clazz);
+            return readSearchResponse(parser, hit -> readHitSource(hit, reader));
+        }
+    }
+
+    /**
+     * Parse the {@code hits.hits[]} of a _search response into their {@code _source} and {@code _score}
+     */
+    public List<ScoredHit> parseScoredHits(InputStream content, Class<?> clazz) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(content)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            ObjectReader reader = readerFor(clazz);
+            return readSearchResponse(parser, hit -> readScoredHit(hit, reader));
+        }
+    }
+
+    /**
+     * Parse one page of a point-in-time search. Each hit's {@code _source} is bound to the class
+     * returned for its index; hits of unknown indices are skipped.
+     */
+    public Page parsePage(InputStream content, Function<String, Class<?>> classForIndex) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(content)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+            String pitId = null;
+            List<PageHit> hits = List.of();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("pit_id".equals(field)) {
+                    pitId = parser.getText();
+                } else if ("hits".equals(field) && value == JsonToken.START_OBJECT) {
+                    hits = readHits(parser, hit -> readPageHit(hit, classForIndex));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new Page(pitId, hits);
+        }
+    }
+
+    /**
+     * Copy the {@code _source} of every hit of a _search response to the output, one JSON
+     * document per line, without binding it to a class. The documents are buffered by the
+     * generator and the output is flushed once, when the page is done; it is not closed.
+     */
+    public StreamedPage writeSources(InputStream content, OutputStream output) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(content);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.setRootValueSeparator(null);
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+            String pitId = null;
+            int hits = 0;
+            ArrayNode lastSort = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("pit_id".equals(field)) {
+                    pitId = parser.getText();
+                } else if ("hits".equals(field) && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String hitsField = parser.currentName();
+                        JsonToken hitsValue = parser.nextToken();
+                        if ("hits".equals(hitsField) && hitsValue == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                lastSort = writeHitSource(parser, generator);
+                                hits++;
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new StreamedPage(pitId, hits, lastSort);
+        }
+    }
+
+    /**
+     * Parse the {@code _source} of a GET _doc response, empty when the document was not found
+     */
+    public <T> Optional<T> parseGetSource(InputStream content, Class<T> clazz) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(content)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+            boolean found = false;
+            T source = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("found".equals(field)) {
+                    found = value == JsonToken.VALUE_TRUE;
+                } else if ("_source".equals(field)) {
+                    source = readerFor(clazz).readValue(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return found ? Optional.ofNullable(source) : Optional.empty();
+        }
+    }
+
+    /**
+     * Parse an _msearch response. Item {@code i} is bound to {@code classes.get(i)}.
+     */
+    public List<MultiSearchItem> parseMultiSearch(InputStream content, List<Class<?>> classes) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(content)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+            List<MultiSearchItem> items = new ArrayList<>(classes.size());
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("responses".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        items.add(readMultiSearchItem(parser, readerFor(classes.get(items.size()))));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return items;
+        }
+    }
+
+    /**
+     * Parse an _mget response. Doc {@code i} is bound to {@code classes.get(i)}.
+     */
+    public List<MultiGetItem> parseMultiGet(InputStream content, List<Class<?>> classes) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(content)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+            List<MultiGetItem> items = new ArrayList<>(classes.size());
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("docs".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        items.add(readMultiGetItem(parser, readerFor(classes.get(items.size()))));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return items;
+        }
+    }
+
+    private MultiGetItem readMultiGetItem(JsonParser parser, ObjectReader reader) throws IOException {
+        boolean found = false;
+        Object source = null;
+        String error = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("found".equals(field)) {
+                found = value == JsonToken.VALUE_TRUE;
+            } else if ("_source".equals(field)) {
+                source = reader.readValue(parser);
+            } else if ("error".equals(field)) {
+                error = objectMapper.readTree(parser).toString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new MultiGetItem(found ? source : null, error);
+    }
+
+    private MultiSearchItem readMultiSearchItem(JsonParser parser, ObjectReader reader) throws IOException {
+        List<?> hits = List.of();
+        String error = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("hits".equals(field) && value == JsonToken.START_OBJECT) {
+                hits = readHits(parser, hit -> readHitSource(hit, reader));
+            } else if ("error".equals(field)) {
+                error = objectMapper.readTree(parser).toString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new MultiSearchItem(hits, error);
+    }
+
+    /**
+     * Parse the hits of a _search response that returns the stored {@code searchTitle}
+     * field instead of {@code _source}
+     */
+    public List<TitleHit> parseTitleHits(InputStream content) throws IOException {
+        List<TitleHit> results = new ArrayList<>();
+        try (JsonParser parser = objectMapper.createParser(content)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!"hits".equals(field) || value != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String hitsField = parser.currentName();
+                    JsonToken hitsValue = parser.nextToken();
+                    if ("hits".equals(hitsField) && hitsValue == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            results.add(readTitleHit(parser));
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Read a single hit, positioned on its START_OBJECT
+     */
+    private TitleHit readTitleHit(JsonParser parser) throws IOException {
+        String index = null;
+        String id = null;
+        double score = 0;
+        String title = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "_index" -> index = parser.getText();
+                case "_id" -> id = parser.getText();
+                case "_score" -> score = value == JsonToken.VALUE_NULL ? 0 : parser.getDoubleValue();
+                case "fields" -> {
+                    // {"searchTitle": ["..."]}
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.currentName();
+                        if (parser.nextToken() == JsonToken.START_ARRAY && "searchTitle".equals(name)) {
+                            if (parser.nextToken() == JsonToken.VALUE_STRING) {
+                                title = parser.getText();
+                            }
+                            while (parser.currentToken() != JsonToken.END_ARRAY) {
+                                parser.skipChildren();
+                                parser.nextToken();
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return new TitleHit(index, id, score, title);
+    }
+
+    /**
+     * Read a search response object, positioned on its START_OBJECT
+     */
+    private <T> List<T> readSearchResponse(JsonParser parser, HitReader<T> reader) throws IOException {
+        List<T> results = List.of();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("hits".equals(field) && value == JsonToken.START_OBJECT) {
+                results = readHits(parser, reader);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Read the outer {@code hits} object, positioned on its START_OBJECT
+     */
+    private <T> List<T> readHits(JsonParser parser, HitReader<T> reader) throws IOException {
+        List<T> results = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("hits".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    T source = reader.read(parser);
+                    if (source != null) {
+                        results.add(source);
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Read a single hit, positioned on its START_OBJECT, returning its bound {@code _source}
+     */
+    private <T> T readHitSource(JsonParser parser, ObjectReader reader) throws IOException {
+        T source = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("_source".equals(field)) {
+                source = reader.readValue(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return source;
+    }
+
+    /**
+     * Read a single hit, positioned on its START_OBJECT, returning its bound {@code _source} and score
+     */
+    private ScoredHit readScoredHit(JsonParser parser, ObjectReader reader) throws IOException {
+        Object source = null;
+        double score = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("_source".equals(field)) {
+                source = reader.readValue(parser);
+            } else if ("_score".equals(field)) {
+                score = value == JsonToken.VALUE_NULL ? 0 : parser.getDoubleValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return source == null ? null : new ScoredHit(score, source);
+    }
+
+    /**
+     * Read a single hit of a paged search, positioned on its START_OBJECT. {@code _index}
+     * comes before {@code _source} in Elasticsearch responses, so the source can be bound directly.
+     */
+    private PageHit readPageHit(JsonParser parser, Function<String, Class<?>> classForIndex) throws IOException {
+        String index = null;
+        Object source = null;
+        double score = 0;
+        ArrayNode sort = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "_index" -> index = parser.getText();
+                case "_score" -> score = value == JsonToken.VALUE_NULL ? 0 : parser.getDoubleValue();
+                case "sort" -> sort = (ArrayNode) objectMapper.readTree(parser);
+                case "_source" -> {
+                    Class<?> clazz = index == null ? null : classForIndex.apply(index);
+                    if (clazz != null) {
+                        source = readerFor(clazz).readValue(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return source == null || sort == null ? null : new PageHit(index, source, score, sort);
+    }
+
+    /**
+     * Copy a single hit's {@code _source} to the output as one line, positioned on the hit's
+     * START_OBJECT, and return the hit's sort values
+     */
+    private ArrayNode writeHitSource(JsonParser parser, JsonGenerator generator) throws IOException {
+        ArrayNode sort = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("_source".equals(field)) {
+                generator.copyCurrentStructure(parser);
+                generator.writeRaw('\n');
+            } else if ("sort".equals(field)) {
+                sort = (ArrayNode) objectMapper.readTree(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return sort;
+    }
+
+    /**
+     * Reads one hit, positioned on its START_OBJECT; null skips the hit
+     */
+    @FunctionalInterface
+    private interface HitReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    private ObjectReader readerFor(Class<?> clazz) {
+        return readers.computeIfAbsent(clazz, objectMapper::readerFor);
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected Elasticsearch response: expected " + expected + " but got " + actual
+                + " at " + parser.currentLocation());
+        }
+    }
+}
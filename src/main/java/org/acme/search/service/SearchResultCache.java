@@ -0,0 +1,176 @@
+package org.acme.search.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.search.config.SearchConfig;
+import org.acme.search.enums.EntityType;
+import org.acme.search.enums.SearchMode;
+import org.acme.search.enums.SearchView;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, in-process cache of per-type search results.
+ *
+ * Entries are kept in least-recently-used order and expire after the TTL of their type.
+ * Writes to an index invalidate all entries of that type; a search that was already in
+ * flight when the invalidation happened does not repopulate the cache with its results.
+ */
+@ApplicationScoped
+public class SearchResultCache {
+
+    /**
+     * Cache key. The query is trimmed but keeps its case, since the keyword clauses are case sensitive.
+     * Filtered searches, summary projections and scored results (hits with their {@code _score}) are cached apart from plain documents.
+     */
+    public record Key(EntityType type, String query, SearchMode mode, int size, SearchView view, SearchFilters filters,
+                      boolean scored) {
+
+        public static Key of(EntityType type, String query, SearchMode mode, int size) {
+            return of(type, query, mode, size, SearchView.FULL);
+        }
+
+        public static Key of(EntityType type, String query, SearchMode mode, int size, SearchView view) {
+            return of(type, query, mode, size, view, SearchFilters.NONE);
+        }
+
+        public static Key of(EntityType type, String query, SearchMode mode, int size, SearchView view, SearchFilters filters) {
+            return new Key(type, query == null ? "" : query.trim(), mode, size, view, filters, false);
+        }
+
+        public static Key scored(EntityType type, String query, SearchMode mode, int size, SearchView view, SearchFilters filters) {
+            return new Key(type, query == null ? "" : query.trim(), mode, size, view, filters, true);
+        }
+    }
+
+    private record Entry(List<?> results, long expiresAtNanos) {
+    }
+
+    @Inject
+    SearchConfig searchConfig;
+
+    LongSupplier clock = System::nanoTime;
+
+    // Access-ordered, so iteration starts at the least recently used entry. Guarded by itself.
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final long[] generations = new long[EntityType.values().length];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Cached results for the key, or null when absent or expired
+     */
+    public List<?> get(Key key) {
+        if (!searchConfig.cache().enabled()) {
+            return null;
+        }
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAtNanos() - clock.getAsLong() <= 0) {
+                entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.results();
+    }
+
+    /**
+     * Current write generation of a type. Read it before searching and pass it to
+     * {@link #put(Key, List, long)} so results fetched before an invalidation are dropped.
+     */
+    public long generation(EntityType type) {
+        synchronized (entries) {
+            return generations[type.ordinal()];
+        }
+    }
+
+    /**
+     * Cache results fetched while the type was at the given generation
+     */
+    public void put(Key key, List<?> results, long generation) {
+        SearchConfig.Cache config = searchConfig.cache();
+        Duration ttl = config.typeTtl().getOrDefault(key.type().getName(), config.ttl());
+        if (!config.enabled() || ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+
+        Entry entry = new Entry(Collections.unmodifiableList(results), clock.getAsLong() + ttl.toNanos());
+        synchronized (entries) {
+            if (generations[key.type().ordinal()] != generation) {
+                return;
+            }
+            entries.put(key, entry);
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > config.maxEntries() && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Drop all entries of a type, e.g. after documents were written to its index
+     */
+    public void invalidate(EntityType type) {
+        synchronized (entries) {
+            generations[type.ordinal()]++;
+            entries.keySet().removeIf(key -> key.type() == type);
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * Drop all entries
+     */
+    public void invalidateAll() {
+        for (EntityType type : EntityType.values()) {
+            invalidate(type);
+        }
+    }
+
+    /**
+     * Cache size and hit/miss counters
+     */
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", searchConfig.cache().enabled());
+        stats.put("size", size);
+        stats.put("maxEntries", searchConfig.cache().maxEntries());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+}
@@ -1,9 +1,12 @@
 package org.acme.search.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.acme.search.config.SearchConfig;
 import org.acme.search.dto.football.Match;
 import org.acme.search.dto.football.MatchWrapper;
 import org.acme.search.dto.potm.PlayerOfTheMatch;
@@ -12,17 +15,45 @@ import org.acme.search.dto.predictor.GameInstance;
 import org.acme.search.dto.predictor.GameInstanceWrapper;
 import org.acme.search.dto.classicquiz.ClassicQuizPublicDto;
 import org.acme.search.dto.classicquiz.ClassicQuizWrapper;
+import org.acme.search.enums.EntityType;
 import org.acme.search.enums.SearchMode;
+import org.acme.search.enums.SearchView;
+import org.acme.search.dto.BatchLookupRequest;
+import org.acme.search.dto.BatchLookupResponse;
+import org.acme.search.dto.SearchPageResponse;
+import org.acme.search.dto.SuggestResponse;
 import org.acme.search.dto.UnifiedSearchResponse;
+import org.acme.search.dto.WrapperSummary;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.elasticsearch.client.Cancellable;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
 import org.elasticsearch.client.RestClient;
+import org.jboss.logging.Logger;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 /**
  * Service for searching DTOs from Elasticsearch
@@ -30,14 +61,289 @@ import java.util.Optional;
 @ApplicationScoped
 public class SearchService {
 
+    /**
+     * Largest page of a cursor-paged search
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final Logger LOG = Logger.getLogger(SearchService.class);
+    private static final ContentType NDJSON = ContentType.create("application/x-ndjson", StandardCharsets.UTF_8);
+    private static final byte[][] MULTI_SEARCH_HEADERS = Arrays.stream(EntityType.values())
+        .map(type -> ("{\"index\":\"" + type.getIndex() + "\"}\n").getBytes(StandardCharsets.UTF_8))
+        .toArray(byte[][]::new);
+
+    /**
+     * Query used when no search text is given
+     */
+    private static final QueryTemplate MATCH_ALL_TEMPLATE = QueryTemplate.compile("""
+        {
+          "size": {{size}},
+          "query": {
+            "match_all": {}
+          }
+        }
+        """);
+
+    /**
+     * Query used when no search text is given but the search is filtered
+     */
+    private static final QueryTemplate FILTERED_TEMPLATE = QueryTemplate.compile("""
+        {
+          "size": {{size}},
+          "query": {
+            "bool": {
+              "must": {
+                "match_all": {}
+              }{{filter}}
+            }
+          }
+        }
+        """);
+
+    /**
+     * Wrapper-specific queries per search mode (search only wrapper fields).
+     * Filters are added to the bool query in filter context.
+     */
+    private static final Map<SearchMode, QueryTemplate> WRAPPER_TEMPLATES = new EnumMap<>(Map.of(
+        // Case insensitive partial match (default behavior)
+        SearchMode.CASE_INSENSITIVE, QueryTemplate.compile("""
+        {
+          "size": {{size}},
+          "query": {
+            "bool": {
+              "should": [
+                {
+                  "match": {
+                    "id": {
+                      "query": "{{query}}",
+                      "fuzziness": "AUTO"
+                    }
+                  }
+                },
+                {
+                  "match": {
+                    "searchTitle": {
+                      "query": "{{query}}",
+                      "fuzziness": "AUTO"
+                    }
+                  }
+                },
+                {
+                  "match": {
+                    "searchDescription": {
+                      "query": "{{query}}",
+                      "fuzziness": "AUTO"
+                    }
+                  }
+                },
+                {
+                  "term": {
+                    "tags": {
+                      "value": "{{query}}",
+                      "case_insensitive": true
+                    }
+                  }
+                },
+                {
+                  "term": {
+                    "flags": {
+                      "value": "{{query}}",
+                      "case_insensitive": true
+                    }
+                  }
+                },
+                {
+                  "term": {
+                    "entityIds": {
+                      "value": "{{query}}",
+                      "case_insensitive": true
+                    }
+                  }
+                }
+              ],
+              "minimum_should_match": 1{{filter}}
+            }
+          }
+        }
+        """),
+        // Case sensitive match
+        SearchMode.CASE_SENSITIVE, QueryTemplate.compile("""
+        {
+          "size": {{size}},
+          "query": {
+            "bool": {
+              "should": [
+                {
+                  "term": {
+                    "id.keyword": "{{query}}"
+                  }
+                },
+                {
+                  "match_phrase": {
+                    "searchTitle": "{{query}}"
+                  }
+                },
+                {
+                  "match_phrase": {
+                    "searchDescription": "{{query}}"
+                  }
+                },
+                {
+                  "term": {
+                    "tags": "{{query}}"
+                  }
+                },
+                {
+                  "term": {
+                    "flags": "{{query}}"
+                  }
+                },
+                {
+                  "term": {
+                    "entityIds": "{{query}}"
+                  }
+                }
+              ],
+              "minimum_should_match": 1{{filter}}
+            }
+          }
+        }
+        """),
+        // Full string match
+        SearchMode.FULL_MATCH, QueryTemplate.compile("""
+        {
+          "size": {{size}},
+          "query": {
+            "bool": {
+              "should": [
+                {
+                  "term": {
+                    "id.keyword": "{{query}}"
+                  }
+                },
+                {
+                  "match_phrase": {
+                    "searchTitle": "{{query}}"
+                  }
+                },
+                {
+                  "match_phrase": {
+                    "searchDescription": "{{query}}"
+                  }
+                },
+                {
+                  "term": {
+                    "tags": "{{query}}"
+                  }
+                },
+                {
+                  "term": {
+                    "flags": "{{query}}"
+                  }
+                },
+                {
+                  "term": {
+                    "entityIds": "{{query}}"
+                  }
+                }
+              ],
+              "minimum_should_match": 1{{filter}}
+            }
+          }
+        }
+        """)
+    ));
+
+    /**
+     * Wrapper fields returned by the summary view; {@code data} is left out
+     */
+    private static final String SUMMARY_SOURCE = """
+        {"includes": ["id", "searchTitle", "searchDescription", "tags", "flags", "entityIds"]}
+        """;
+
+    private static final QueryTemplate MATCH_ALL_SUMMARY_TEMPLATE = MATCH_ALL_TEMPLATE.withField("_source", SUMMARY_SOURCE);
+
+    private static final QueryTemplate FILTERED_SUMMARY_TEMPLATE = FILTERED_TEMPLATE.withField("_source", SUMMARY_SOURCE);
+
+    private static final Map<SearchMode, QueryTemplate> WRAPPER_SUMMARY_TEMPLATES = new EnumMap<>(SearchMode.class);
+
+    /**
+     * Members that turn a search into a cursor page: read from a point in time, in relevance
+     * order with the ID as tie-breaker. The point in time adds _shard_doc as a final
+     * tie-breaker, so equal IDs across indices still page correctly.
+     */
+    private static final String PAGE_FIELDS = """
+        "pit": {{pit}},
+        "sort": [{"_score": "desc"}, {"id.keyword": "asc"}],
+        "track_total_hits": false{{search_after}},
+        """;
+
+    /**
+     * Members that turn a search into an export page: read from a point in time in index order, the cheapest sort
+     */
+    private static final String EXPORT_FIELDS = """
+        "pit": {{pit}},
+        "sort": [{"_shard_doc": "asc"}],
+        "track_total_hits": false{{search_after}},
+        """;
+
+    private static final QueryTemplate MATCH_ALL_PAGE_TEMPLATE = MATCH_ALL_TEMPLATE.withFields(PAGE_FIELDS);
+    private static final QueryTemplate MATCH_ALL_EXPORT_TEMPLATE = MATCH_ALL_TEMPLATE.withFields(EXPORT_FIELDS);
+
+    private static final Map<SearchMode, QueryTemplate> WRAPPER_PAGE_TEMPLATES = new EnumMap<>(SearchMode.class);
+    private static final Map<SearchMode, QueryTemplate> WRAPPER_EXPORT_TEMPLATES = new EnumMap<>(SearchMode.class);
+
+    static {
+        WRAPPER_TEMPLATES.forEach((mode, template) -> {
+            WRAPPER_SUMMARY_TEMPLATES.put(mode, template.withField("_source", SUMMARY_SOURCE));
+            WRAPPER_PAGE_TEMPLATES.put(mode, template.withFields(PAGE_FIELDS));
+            WRAPPER_EXPORT_TEMPLATES.put(mode, template.withFields(EXPORT_FIELDS));
+        });
+    }
+
+    /**
+     * Autocomplete query: prefix match on the search_as_you_type field and its shingles.
+     * Only the stored title is returned, never the _source.
+     */
+    private static final QueryTemplate SUGGEST_TEMPLATE = QueryTemplate.compile("""
+        {
+          "size": {{size}},
+          "_source": false,
+          "stored_fields": ["searchTitle"],
+          "track_total_hits": false,
+          "query": {
+            "multi_match": {
+              "query": "{{query}}",
+              "type": "bool_prefix",
+              "fields": ["suggest", "suggest._2gram", "suggest._3gram"]
+            }
+          }
+        }
+        """);
+
+    private static final String ALL_INDICES = Arrays.stream(EntityType.values())
+        .map(EntityType::getIndex)
+        .collect(Collectors.joining(","));
+
     @Inject
     RestClient restClient;
 
+    @Inject
+    SearchConfig searchConfig;
+
+    @Inject
+    SearchResultCache searchResultCache;
+
+    @Inject
+    SearchCoalescer searchCoalescer;
+
     private final ObjectMapper objectMapper;
+    private final SearchResponseParser responseParser;
 
     public SearchService() {
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
+        this.responseParser = new SearchResponseParser(objectMapper);
     }
 
     /**
@@ -51,13 +357,7 @@ public class SearchService {
      * Search for football matches with specified search mode
      */
     public List<Match> searchFootballMatches(String query, int size, SearchMode mode) throws IOException {
-        String searchQuery = buildWrapperSearchQuery(query, size, mode);
-        Request request = new Request("POST", "/football_matches/_search");
-        request.setJsonEntity(searchQuery);
-
-        Response response = restClient.performRequest(request);
-        List<MatchWrapper> wrappers = parseSearchResponse(response, MatchWrapper.class);
-        return wrappers.stream().map(MatchWrapper::data).toList();
+        return searchFootballMatchesWrapped(query, size, mode).stream().map(MatchWrapper::data).toList();
     }
 
     /**
@@ -78,13 +378,7 @@ public class SearchService {
      * Search for game instances (predictions) with specified search mode
      */
     public List<GameInstance> searchGameInstances(String query, int size, SearchMode mode) throws IOException {
-        String searchQuery = buildWrapperSearchQuery(query, size, mode);
-        Request request = new Request("POST", "/predictions/_search");
-        request.setJsonEntity(searchQuery);
-
-        Response response = restClient.performRequest(request);
-        List<GameInstanceWrapper> wrappers = parseSearchResponse(response, GameInstanceWrapper.class);
-        return wrappers.stream().map(GameInstanceWrapper::data).toList();
+        return searchGameInstancesWrapped(query, size, mode).stream().map(GameInstanceWrapper::data).toList();
     }
 
     /**
@@ -105,13 +399,7 @@ public class SearchService {
      * Search for classic quiz games with specified search mode
      */
     public List<ClassicQuizPublicDto> searchClassicQuizzes(String query, int size, SearchMode mode) throws IOException {
-        String searchQuery = buildWrapperSearchQuery(query, size, mode);
-        Request request = new Request("POST", "/quiz_games/_search");
-        request.setJsonEntity(searchQuery);
-
-        Response response = restClient.performRequest(request);
-        List<ClassicQuizWrapper> wrappers = parseSearchResponse(response, ClassicQuizWrapper.class);
-        return wrappers.stream().map(ClassicQuizWrapper::data).toList();
+        return searchClassicQuizzesWrapped(query, size, mode).stream().map(ClassicQuizWrapper::data).toList();
     }
 
     /**
@@ -132,13 +420,7 @@ public class SearchService {
      * Search for player of the match games with specified search mode
      */
     public List<PlayerOfTheMatch> searchPlayerOfTheMatchGames(String query, int size, SearchMode mode) throws IOException {
-        String searchQuery = buildWrapperSearchQuery(query, size, mode);
-        Request request = new Request("POST", "/player_games/_search");
-        request.setJsonEntity(searchQuery);
-
-        Response response = restClient.performRequest(request);
-        List<PlayerOfTheMatchWrapper> wrappers = parseSearchResponse(response, PlayerOfTheMatchWrapper.class);
-        return wrappers.stream().map(PlayerOfTheMatchWrapper::data).toList();
+        return searchPlayerOfTheMatchGamesWrapped(query, size, mode).stream().map(PlayerOfTheMatchWrapper::data).toList();
     }
 
     /**
@@ -152,15 +434,7 @@ public class SearchService {
      * Find a football match by ID
      */
     public Optional<Match> findFootballMatchById(Long id) throws IOException {
-        Request request = new Request("GET", "/football_matches/_doc/" + id);
-        try {
-            Response response = restClient.performRequest(request);
-            Optional<MatchWrapper> wrapper = parseGetResponse(response, MatchWrapper.class);
-            return wrapper.map(MatchWrapper::data);
-        } catch (Exception e) {
-            // Document not found or other error
-            return Optional.empty();
-        }
+        return findFootballMatchByIdWrapped(id).map(MatchWrapper::data);
     }
 
     /**
@@ -174,15 +448,7 @@ public class SearchService {
      * Find a game instance by ID
      */
     public Optional<GameInstance> findGameInstanceById(Long id) throws IOException {
-        Request request = new Request("GET", "/predictions/_doc/" + id);
-        try {
-            Response response = restClient.performRequest(request);
-            Optional<GameInstanceWrapper> wrapper = parseGetResponse(response, GameInstanceWrapper.class);
-            return wrapper.map(GameInstanceWrapper::data);
-        } catch (Exception e) {
-            // Document not found or other error
-            return Optional.empty();
-        }
+        return findGameInstanceByIdWrapped(id).map(GameInstanceWrapper::data);
     }
 
     /**
@@ -196,15 +462,7 @@ public class SearchService {
      * Find a classic quiz by ID
      */
     public Optional<ClassicQuizPublicDto> findClassicQuizById(Long id) throws IOException {
-        Request request = new Request("GET", "/quiz_games/_doc/" + id);
-        try {
-            Response response = restClient.performRequest(request);
-            Optional<ClassicQuizWrapper> wrapper = parseGetResponse(response, ClassicQuizWrapper.class);
-            return wrapper.map(ClassicQuizWrapper::data);
-        } catch (Exception e) {
-            // Document not found or other error
-            return Optional.empty();
-        }
+        return findClassicQuizByIdWrapped(id).map(ClassicQuizWrapper::data);
     }
 
     /**
@@ -218,15 +476,7 @@ public class SearchService {
      * Find a player of the match game by ID
      */
     public Optional<PlayerOfTheMatch> findPlayerOfTheMatchGameById(Long id) throws IOException {
-        Request request = new Request("GET", "/player_games/_doc/" + id);
-        try {
-            Response response = restClient.performRequest(request);
-            Optional<PlayerOfTheMatchWrapper> wrapper = parseGetResponse(response, PlayerOfTheMatchWrapper.class);
-            return wrapper.map(PlayerOfTheMatchWrapper::data);
-        } catch (Exception e) {
-            // Document not found or other error
-            return Optional.empty();
-        }
+        return findPlayerOfTheMatchGameByIdWrapped(id).map(PlayerOfTheMatchWrapper::data);
     }
 
     /**
@@ -236,70 +486,62 @@ public class SearchService {
         return findPlayerOfTheMatchGameById(id);
     }
 
-    // Wrapper methods that return wrapped DTOs
+    // Wrapper methods that return wrapped DTOs exactly as they are stored in Elasticsearch
 
     /**
      * Search for football matches and return wrapped results
      */
     public List<MatchWrapper> searchFootballMatchesWrapped(String query, int size, SearchMode mode) throws IOException {
-        List<Match> matches = searchFootballMatches(query, size, mode);
-        return matches.stream().map(MatchWrapper::of).toList();
+        return searchCached(EntityType.MATCHES, query, size, mode);
     }
 
     /**
      * Search for game instances and return wrapped results
      */
     public List<GameInstanceWrapper> searchGameInstancesWrapped(String query, int size, SearchMode mode) throws IOException {
-        List<GameInstance> gameInstances = searchGameInstances(query, size, mode);
-        return gameInstances.stream().map(GameInstanceWrapper::of).toList();
+        return searchCached(EntityType.PREDICTIONS, query, size, mode);
     }
 
     /**
      * Search for classic quizzes and return wrapped results
      */
     public List<ClassicQuizWrapper> searchClassicQuizzesWrapped(String query, int size, SearchMode mode) throws IOException {
-        List<ClassicQuizPublicDto> quizzes = searchClassicQuizzes(query, size, mode);
-        return quizzes.stream().map(ClassicQuizWrapper::of).toList();
+        return searchCached(EntityType.QUIZ_GAMES, query, size, mode);
     }
 
     /**
      * Search for player of the match games and return wrapped results
      */
     public List<PlayerOfTheMatchWrapper> searchPlayerOfTheMatchGamesWrapped(String query, int size, SearchMode mode) throws IOException {
-        List<PlayerOfTheMatch> playerGames = searchPlayerOfTheMatchGames(query, size, mode);
-        return playerGames.stream().map(PlayerOfTheMatchWrapper::of).toList();
+        return searchCached(EntityType.PLAYER_GAMES, query, size, mode);
     }
 
     /**
      * Find a football match by ID and return wrapped result
      */
     public Optional<MatchWrapper> findFootballMatchByIdWrapped(Long id) throws IOException {
-        Optional<Match> match = findFootballMatchById(id);
-        return match.map(MatchWrapper::of);
+        return findById(EntityType.MATCHES, String.valueOf(id), MatchWrapper.class);
     }
 
     /**
      * Find a game instance by ID and return wrapped result
      */
     public Optional<GameInstanceWrapper> findGameInstanceByIdWrapped(Long id) throws IOException {
-        Optional<GameInstance> gameInstance = findGameInstanceById(id);
-        return gameInstance.map(GameInstanceWrapper::of);
+        return findById(EntityType.PREDICTIONS, String.valueOf(id), GameInstanceWrapper.class);
     }
 
     /**
      * Find a classic quiz by ID and return wrapped result
      */
     public Optional<ClassicQuizWrapper> findClassicQuizByIdWrapped(Long id) throws IOException {
-        Optional<ClassicQuizPublicDto> quiz = findClassicQuizById(id);
-        return quiz.map(ClassicQuizWrapper::of);
+        return findById(EntityType.QUIZ_GAMES, String.valueOf(id), ClassicQuizWrapper.class);
     }
 
     /**
      * Find a player of the match game by ID and return wrapped result
      */
     public Optional<PlayerOfTheMatchWrapper> findPlayerOfTheMatchGameByIdWrapped(Long id) throws IOException {
-        Optional<PlayerOfTheMatch> playerGame = findPlayerOfTheMatchGameById(id);
-        return playerGame.map(PlayerOfTheMatchWrapper::of);
+        return findById(EntityType.PLAYER_GAMES, String.valueOf(id), PlayerOfTheMatchWrapper.class);
     }
 
     /**
@@ -313,16 +555,758 @@ public class SearchService {
      * Search across all entity types with specified search mode
      */
     public UnifiedSearchResponse searchAllTypes(String query, int size, SearchMode mode) throws IOException {
+        return searchAllTypes(query, size, mode, SearchView.DEFAULT);
+    }
+
+    /**
+     * Search across all entity types with specified search mode, returning full wrappers or summaries
+     */
+    public UnifiedSearchResponse searchAllTypes(String query, int size, SearchMode mode, SearchView view) throws IOException {
+        return searchAllTypes(query, size, mode, view, SearchFilters.NONE);
+    }
+
+    /**
+     * Search across all entity types with specified search mode and view, restricted to the documents matching the filters
+     */
+    public UnifiedSearchResponse searchAllTypes(String query, int size, SearchMode mode, SearchView view, SearchFilters filters) throws IOException {
+        if (searchConfig.unified().ranking() == SearchConfig.Unified.Ranking.SCORE) {
+            return searchAllTypesRanked(query, Math.max(1, size), mode, view, filters);
+        }
+
         // Search each type with a smaller size to distribute results
         int sizePerType = Math.max(1, size / 4); // Divide size among 4 types
 
-        // Use the wrapper search methods directly
-        List<MatchWrapper> wrappedMatches = searchFootballMatchesWrapped(query, sizePerType, mode);
-        List<GameInstanceWrapper> wrappedGameInstances = searchGameInstancesWrapped(query, sizePerType, mode);
-        List<ClassicQuizWrapper> wrappedQuizzes = searchClassicQuizzesWrapped(query, sizePerType, mode);
-        List<PlayerOfTheMatchWrapper> wrappedPlayerGames = searchPlayerOfTheMatchGamesWrapped(query, sizePerType, mode);
+        return switch (searchConfig.unified().strategy()) {
+            case SEQUENTIAL -> searchAllTypesSequentially(query, sizePerType, mode, view, filters);
+            case CONCURRENT -> searchAllTypesConcurrently(query, sizePerType, mode, view, filters);
+            case MSEARCH -> searchAllTypesWithMultiSearch(query, sizePerType, mode, view, filters);
+        };
+    }
+
+    /**
+     * Search across all entity types one index after another
+     */
+    private UnifiedSearchResponse searchAllTypesSequentially(String query, int sizePerType, SearchMode mode, SearchView view, SearchFilters filters) throws IOException {
+        Map<EntityType, List<?>> results = new EnumMap<>(EntityType.class);
+        for (EntityType type : EntityType.values()) {
+            results.put(type, searchCached(type, query, sizePerType, mode, view, filters));
+        }
+        return toUnifiedResponse(results, List.of());
+    }
+
+    /**
+     * Search across all entity types with all uncached searches in flight at once.
+     * Types that miss the configured deadline (or fail) are returned empty and listed
+     * as incomplete; the request only fails when no type completed.
+     */
+    private UnifiedSearchResponse searchAllTypesConcurrently(String query, int sizePerType, SearchMode mode, SearchView view, SearchFilters filters) throws IOException {
+        Map<EntityType, List<?>> results = new EnumMap<>(EntityType.class);
+        Map<EntityType, CompletableFuture<List<?>>> pending = new EnumMap<>(EntityType.class);
+        byte[] searchQuery = null;
+
+        for (EntityType type : EntityType.values()) {
+            SearchResultCache.Key key = SearchResultCache.Key.of(type, query, mode, sizePerType, view, filters);
+            List<?> cached = searchResultCache.get(key);
+            if (cached != null) {
+                results.put(type, cached);
+                continue;
+            }
+            if (searchQuery == null) {
+                searchQuery = buildWrapperSearchQuery(query, sizePerType, mode, view, filters);
+            }
+            long generation = searchResultCache.generation(type);
+            CompletableFuture<List<?>> future = searchAsync(type, searchQuery, resultClass(type, view), generation);
+            future.thenAccept(hits -> searchResultCache.put(key, hits, generation));
+            pending.put(type, future);
+        }
+
+        long deadlineNanos = System.nanoTime() + searchConfig.unified().deadline().toNanos();
+        List<String> incompleteTypes = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (Map.Entry<EntityType, CompletableFuture<List<?>>> entry : pending.entrySet()) {
+            results.put(entry.getKey(), awaitWithin(entry.getValue(), entry.getKey(), deadlineNanos, incompleteTypes, failures));
+        }
+
+        requireAnyComplete(incompleteTypes, failures);
+
+        return toUnifiedResponse(results, incompleteTypes);
+    }
+
+    /**
+     * Search across all entity types with a single _msearch round trip for the uncached
+     * types. The response is bounded by the same deadline as the concurrent strategy; a
+     * type whose item in the combined response is an error is returned empty and listed
+     * as incomplete. The request fails when no type completed.
+     */
+    private UnifiedSearchResponse searchAllTypesWithMultiSearch(String query, int sizePerType, SearchMode mode, SearchView view, SearchFilters filters) throws IOException {
+        Map<EntityType, List<?>> results = new EnumMap<>(EntityType.class);
+        List<EntityType> missing = new ArrayList<>();
+        for (EntityType type : EntityType.values()) {
+            List<?> cached = searchResultCache.get(SearchResultCache.Key.of(type, query, mode, sizePerType, view, filters));
+            if (cached != null) {
+                results.put(type, cached);
+            } else {
+                missing.add(type);
+            }
+        }
+        if (missing.isEmpty()) {
+            return toUnifiedResponse(results, List.of());
+        }
+
+        // Templates render on a single line, so the body can go straight into the NDJSON payload
+        byte[] searchQuery = buildWrapperSearchQuery(query, sizePerType, mode, view, filters);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(missing.size() * (64 + searchQuery.length));
+        long[] generations = new long[missing.size()];
+        // Generations only grow, so their sum changes whenever any of the types is reloaded
+        long generationSum = 0;
+        for (int i = 0; i < missing.size(); i++) {
+            body.writeBytes(MULTI_SEARCH_HEADERS[missing.get(i).ordinal()]);
+            body.writeBytes(searchQuery);
+            body.write('\n');
+            generations[i] = searchResultCache.generation(missing.get(i));
+            generationSum += generations[i];
+        }
+
+        List<Class<?>> classes = missing.stream().<Class<?>>map(type -> resultClass(type, view)).toList();
+        byte[] payload = body.toByteArray();
+        CompletableFuture<List<SearchResponseParser.MultiSearchItem>> future =
+            searchCoalescer.execute("_msearch", generationSum, payload, () -> {
+                Request request = new Request("POST", "/_msearch");
+                request.setEntity(new NByteArrayEntity(payload, NDJSON));
+                return performRequestAsync(request, response -> parseMultiSearchResponse(response, classes));
+            });
+
+        List<SearchResponseParser.MultiSearchItem> responses;
+        try {
+            responses = future.get(searchConfig.unified().deadline().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            LOG.warnf("Multi search missed the unified search deadline of %s", searchConfig.unified().deadline());
+            List<String> incompleteTypes = missing.stream().map(EntityType::getName).toList();
+            requireAnyComplete(incompleteTypes, List.of());
+            return toUnifiedResponse(results, incompleteTypes);
+        } catch (ExecutionException e) {
+            throw new IOException("Multi search failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during multi search");
+        }
+
+        List<String> incompleteTypes = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < missing.size(); i++) {
+            EntityType type = missing.get(i);
+            SearchResponseParser.MultiSearchItem item = responses.get(i);
+            if (item.failed()) {
+                LOG.warnf("Search in %s failed: %s", type.getIndex(), item.error());
+                incompleteTypes.add(type.getName());
+                failures.add(new IOException("Search in " + type.getIndex() + " failed: " + item.error()));
+                continue;
+            }
+            results.put(type, item.hits());
+            searchResultCache.put(SearchResultCache.Key.of(type, query, mode, sizePerType, view, filters), item.hits(), generations[i]);
+        }
+
+        requireAnyComplete(incompleteTypes, failures);
+        return toUnifiedResponse(results, incompleteTypes);
+    }
+
+    /**
+     * Search across all entity types and return the {@code size} most relevant hits over all of them.
+     *
+     * Every type is first searched concurrently for a share of {@code size}, scaled by the
+     * over-fetch factor. Types whose hits all made the merged top (so they may have more
+     * that belong there) are then searched again for the full size. Both rounds share the
+     * unified search deadline; a type that misses it in the second round keeps its first-round hits.
+     * The request fails when no type completed the first round.
+     */
+    @SuppressWarnings("unchecked")
+    private UnifiedSearchResponse searchAllTypesRanked(String query, int size, SearchMode mode, SearchView view, SearchFilters filters) throws IOException {
+        long deadlineNanos = System.nanoTime() + searchConfig.unified().deadline().toNanos();
+        int fetchSize = RankedMerge.initialFetchSize(size, searchConfig.unified().overFetch(), EntityType.values().length);
+
+        Map<EntityType, List<SearchResponseParser.ScoredHit>> results = new EnumMap<>(EntityType.class);
+        Map<EntityType, Integer> requested = new EnumMap<>(EntityType.class);
+        List<String> incompleteTypes = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (EntityType type : EntityType.values()) {
+            requested.put(type, fetchSize);
+        }
+        results.putAll(searchScoredConcurrently(requested, query, mode, view, filters, deadlineNanos, incompleteTypes, failures));
+
+        requireAnyComplete(incompleteTypes, failures);
+
+        List<RankedMerge.Entry> top = RankedMerge.topK(results, size);
+        Map<EntityType, Integer> refetch = new EnumMap<>(EntityType.class);
+        for (EntityType type : RankedMerge.truncated(results, requested, top)) {
+            if (requested.get(type) < size) {
+                refetch.put(type, size);
+            }
+        }
+        if (!refetch.isEmpty()) {
+            // Types that miss the deadline now still have their first-round hits
+            Map<EntityType, List<SearchResponseParser.ScoredHit>> more =
+                searchScoredConcurrently(refetch, query, mode, view, filters, deadlineNanos, new ArrayList<>(), new ArrayList<>());
+            results.putAll(more);
+            top = RankedMerge.topK(results, size);
+        }
+
+        Map<EntityType, List<?>> perType = new EnumMap<>(EntityType.class);
+        List<UnifiedSearchResponse.RankedHit> ranked = new ArrayList<>(top.size());
+        for (RankedMerge.Entry entry : top) {
+            ranked.add(new UnifiedSearchResponse.RankedHit(entry.type().getName(), entry.hit().score(), entry.hit().source()));
+            ((List<Object>) perType.computeIfAbsent(entry.type(), type -> new ArrayList<>())).add(entry.hit().source());
+        }
+        return toUnifiedResponse(perType, incompleteTypes, ranked);
+    }
+
+    /**
+     * Search the given types for the given number of scored hits each, at once and bounded by
+     * the deadline. Types that miss it or fail are left out of the result and listed as incomplete.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<EntityType, List<SearchResponseParser.ScoredHit>> searchScoredConcurrently(
+            Map<EntityType, Integer> sizes, String query, SearchMode mode, SearchView view, SearchFilters filters, long deadlineNanos,
+            List<String> incompleteTypes, List<Throwable> failures) throws IOException {
+        Map<EntityType, List<SearchResponseParser.ScoredHit>> results = new EnumMap<>(EntityType.class);
+        Map<EntityType, CompletableFuture<List<?>>> pending = new EnumMap<>(EntityType.class);
+
+        for (Map.Entry<EntityType, Integer> entry : sizes.entrySet()) {
+            EntityType type = entry.getKey();
+            SearchResultCache.Key key = SearchResultCache.Key.scored(type, query, mode, entry.getValue(), view, filters);
+            List<?> cached = searchResultCache.get(key);
+            if (cached != null) {
+                results.put(type, (List<SearchResponseParser.ScoredHit>) cached);
+                continue;
+            }
+            long generation = searchResultCache.generation(type);
+            byte[] searchQuery = buildWrapperSearchQuery(query, entry.getValue(), mode, view, filters);
+            // Scored and plain searches have the same body but different results, so they are coalesced apart
+            CompletableFuture<List<?>> future = searchCoalescer.execute(type.getIndex() + "#scored", generation, searchQuery, () ->
+                performRequestAsync(newSearchRequest(type, searchQuery), response -> parseScoredSearchResponse(response, resultClass(type, view))));
+            future.thenAccept(hits -> searchResultCache.put(key, hits, generation));
+            pending.put(type, future);
+        }
+
+        for (Map.Entry<EntityType, CompletableFuture<List<?>>> entry : pending.entrySet()) {
+            int before = incompleteTypes.size();
+            List<?> hits = awaitWithin(entry.getValue(), entry.getKey(), deadlineNanos, incompleteTypes, failures);
+            if (incompleteTypes.size() == before) {
+                results.put(entry.getKey(), (List<SearchResponseParser.ScoredHit>) hits);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Fail a unified search in which no type completed, whether the types failed or missed the deadline
+     */
+    private void requireAnyComplete(List<String> incompleteTypes, List<Throwable> failures) throws IOException {
+        if (incompleteTypes.size() < EntityType.values().length) {
+            return;
+        }
+        if (!failures.isEmpty()) {
+            throw new IOException("All types failed: " + failures.get(0).getMessage(), failures.get(0));
+        }
+        throw new IOException("No type completed within the unified search deadline of " + searchConfig.unified().deadline());
+    }
+
+    /**
+     * Assemble the unified response; types without results are returned empty
+     */
+    private static UnifiedSearchResponse toUnifiedResponse(Map<EntityType, List<?>> results, List<String> incompleteTypes) {
+        return toUnifiedResponse(results, incompleteTypes, List.of());
+    }
+
+    /**
+     * Assemble the unified response with the hits of all types in relevance order
+     */
+    private static UnifiedSearchResponse toUnifiedResponse(Map<EntityType, List<?>> results, List<String> incompleteTypes,
+                                                           List<UnifiedSearchResponse.RankedHit> ranked) {
+        return UnifiedSearchResponse.of(
+            results.getOrDefault(EntityType.MATCHES, List.of()),
+            results.getOrDefault(EntityType.PREDICTIONS, List.of()),
+            results.getOrDefault(EntityType.QUIZ_GAMES, List.of()),
+            results.getOrDefault(EntityType.PLAYER_GAMES, List.of()),
+            incompleteTypes,
+            ranked);
+    }
+
+    /**
+     * Wait for a per-type search until the shared deadline. A search that misses the
+     * deadline is cancelled; both timeouts and failures mark the type as incomplete.
+     */
+    private List<?> awaitWithin(CompletableFuture<List<?>> future, EntityType type, long deadlineNanos,
+                                List<String> incompleteTypes, List<Throwable> failures) throws IOException {
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            LOG.warnf("Search in %s missed the unified search deadline of %s", type.getIndex(), searchConfig.unified().deadline());
+        } catch (ExecutionException e) {
+            failures.add(e.getCause());
+            LOG.warnf("Search in %s failed: %s", type.getIndex(), e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while searching " + type.getIndex());
+        }
+        incompleteTypes.add(type.getName());
+        return List.of();
+    }
+
+    /**
+     * Search one index, serving repeated queries from the result cache
+     */
+    private <T> List<T> searchCached(EntityType type, String query, int size, SearchMode mode) throws IOException {
+        return searchCached(type, query, size, mode, SearchView.FULL, SearchFilters.NONE);
+    }
+
+    /**
+     * Search one index for full wrappers or summaries matching the filters, serving repeated queries from the result cache
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> searchCached(EntityType type, String query, int size, SearchMode mode, SearchView view, SearchFilters filters) throws IOException {
+        SearchResultCache.Key key = SearchResultCache.Key.of(type, query, mode, size, view, filters);
+        List<?> cached = searchResultCache.get(key);
+        if (cached != null) {
+            return (List<T>) cached;
+        }
+
+        long generation = searchResultCache.generation(type);
+        List<?> results = search(type, buildWrapperSearchQuery(query, size, mode, view, filters), resultClass(type, view), generation);
+        searchResultCache.put(key, results, generation);
+        return (List<T>) results;
+    }
+
+    /**
+     * Search one index and return the stored documents, sharing the request with identical concurrent searches
+     */
+    private List<?> search(EntityType type, byte[] searchQuery, Class<?> resultClass, long generation) throws IOException {
+        try {
+            return searchAsync(type, searchQuery, resultClass, generation).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Search in " + type.getIndex() + " failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while searching " + type.getIndex());
+        }
+    }
+
+    /**
+     * Send a search request without blocking and parse the hits once the response arrives.
+     * Identical searches at the same cache generation that are already in flight are joined.
+     */
+    private CompletableFuture<List<?>> searchAsync(EntityType type, byte[] searchQuery, Class<?> resultClass, long generation) {
+        return searchCoalescer.execute(type.getIndex(), generation, searchQuery, () ->
+            performRequestAsync(newSearchRequest(type, searchQuery), response -> parseSearchResponse(response, resultClass)));
+    }
+
+    /**
+     * Class the hits of a type are bound to in the given view
+     */
+    private static Class<?> resultClass(EntityType type, SearchView view) {
+        return view == SearchView.SUMMARY ? WrapperSummary.class : type.getWrapperClass();
+    }
+
+    private Request newSearchRequest(EntityType type, byte[] searchQuery) {
+        Request request = new Request("POST", "/" + type.getIndex() + "/_search");
+        request.setEntity(new NByteArrayEntity(searchQuery, ContentType.APPLICATION_JSON));
+        return request;
+    }
+
+    /**
+     * Fetch one stored document by ID
+     */
+    private <T> Optional<T> findById(EntityType type, String id, Class<T> clazz) {
+        Request request = new Request("GET", "/" + type.getIndex() + "/_doc/" + id);
+        try {
+            Response response = restClient.performRequest(request);
+            return parseGetResponse(response, clazz);
+        } catch (Exception e) {
+            // Document not found or other error
+            return Optional.empty();
+        }
+    }
+
+    // Non-blocking variants built on the asynchronous client; nothing below blocks the calling thread
+
+    /**
+     * Search one index without blocking, serving repeated queries from the result cache
+     */
+    public Uni<List<?>> searchUni(EntityType type, String query, int size, SearchMode mode) {
+        SearchResultCache.Key key = SearchResultCache.Key.of(type, query, mode, size);
+        return Uni.createFrom().deferred(() -> {
+            List<?> cached = searchResultCache.get(key);
+            if (cached != null) {
+                return Uni.createFrom().item(cached);
+            }
+            long generation = searchResultCache.generation(type);
+            return Uni.createFrom().completionStage(searchAsync(type, buildWrapperSearchQuery(query, size, mode), type.getWrapperClass(), generation))
+                .invoke(results -> searchResultCache.put(key, results, generation));
+        });
+    }
+
+    /**
+     * Find one stored document by ID without blocking
+     */
+    public Uni<Optional<?>> findByIdUni(EntityType type, String id) {
+        Request request = new Request("GET", "/" + type.getIndex() + "/_doc/" + id);
+        return Uni.createFrom().completionStage(() -> this.<Optional<?>>performRequestAsync(request,
+                response -> parseGetResponse(response, type.getWrapperClass())))
+            // Document not found or other error
+            .onFailure().recoverWithItem(Optional.empty());
+    }
+
+    /**
+     * Search across all entity types without blocking, honouring the unified strategy and ranking.
+     *
+     * With SPLIT ranking and the CONCURRENT strategy all uncached types are searched at once
+     * and bounded by the unified search deadline, without holding a thread. The other
+     * configurations have no non-blocking implementation; they run {@link #searchAllTypes}
+     * on a worker thread, so both endpoints return the same results.
+     */
+    public Uni<UnifiedSearchResponse> searchAllTypesUni(String query, int size, SearchMode mode) {
+        SearchConfig.Unified unified = searchConfig.unified();
+        if (unified.ranking() != SearchConfig.Unified.Ranking.SPLIT || unified.strategy() != SearchConfig.Unified.Strategy.CONCURRENT) {
+            return Uni.createFrom().<UnifiedSearchResponse>emitter(emitter -> {
+                try {
+                    emitter.complete(searchAllTypes(query, size, mode));
+                } catch (IOException e) {
+                    emitter.fail(e);
+                }
+            }).runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+        }
+
+        int sizePerType = Math.max(1, size / 4);
+        Duration deadline = searchConfig.unified().deadline();
+
+        List<Uni<TypeOutcome>> outcomes = new ArrayList<>(EntityType.values().length);
+        for (EntityType type : EntityType.values()) {
+            outcomes.add(searchUni(type, query, sizePerType, mode)
+                .onItem().transform(results -> new TypeOutcome(type, results, null))
+                .ifNoItem().after(deadline).recoverWithItem(() -> {
+                    LOG.warnf("Search in %s missed the unified search deadline of %s", type.getIndex(), deadline);
+                    return new TypeOutcome(type, null, null);
+                })
+                .onFailure().recoverWithItem(failure -> {
+                    LOG.warnf("Search in %s failed: %s", type.getIndex(), failure.getMessage());
+                    return new TypeOutcome(type, null, failure);
+                }));
+        }
+
+        return Uni.join().all(outcomes).andFailFast().onItem().transformToUni(completed -> {
+            Map<EntityType, List<?>> results = new EnumMap<>(EntityType.class);
+            List<String> incompleteTypes = new ArrayList<>();
+            Throwable failure = null;
+            for (TypeOutcome outcome : completed) {
+                if (outcome.results() != null) {
+                    results.put(outcome.type(), outcome.results());
+                } else {
+                    incompleteTypes.add(outcome.type().getName());
+                    failure = failure != null ? failure : outcome.failure();
+                }
+            }
+            if (results.isEmpty()) {
+                return Uni.createFrom().failure(failure != null
+                    ? new IOException("All types failed: " + failure.getMessage(), failure)
+                    : new IOException("No type completed within the unified search deadline of " + deadline));
+            }
+            return Uni.createFrom().item(toUnifiedResponse(results, incompleteTypes));
+        });
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #unifiedSearch(String, Long, String, int, SearchMode)}
+     */
+    public Uni<Object> unifiedSearchUni(String type, Long id, String query, int size, SearchMode mode) {
+        EntityType entityType = EntityType.fromString(type);
+        if (id != null) {
+            return findByIdUni(entityType, String.valueOf(id)).onItem().transform(result -> result);
+        }
+        return searchUni(entityType, query, size, mode).onItem().transform(results -> results);
+    }
+
+    /**
+     * Outcome of one type in a non-blocking unified search; results are null when the type is incomplete
+     */
+    private record TypeOutcome(EntityType type, List<?> results, Throwable failure) {
+    }
+
+    /**
+     * Fetch many stored documents, possibly of different types, with a single _mget.
+     * Results are returned in request order with an explicit entry for every missing document.
+     */
+    public BatchLookupResponse findByIds(List<BatchLookupRequest.Item> items) throws IOException {
+        List<EntityType> types = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchLookupRequest.Item item = items.get(i);
+            if (item == null || item.id() == null || item.id().isBlank()) {
+                throw new IllegalArgumentException("Missing id for item " + i);
+            }
+            types.add(EntityType.fromString(item.type()));
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(32 + items.size() * 48);
+        try (JsonGenerator generator = objectMapper.createGenerator(body)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("docs");
+            for (int i = 0; i < items.size(); i++) {
+                generator.writeStartObject();
+                generator.writeStringField("_index", types.get(i).getIndex());
+                generator.writeStringField("_id", items.get(i).id());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+
+        Request request = new Request("POST", "/_mget");
+        request.setEntity(new NByteArrayEntity(body.toByteArray(), ContentType.APPLICATION_JSON));
+        Response response = restClient.performRequest(request);
+        List<SearchResponseParser.MultiGetItem> docs =
+            parseMultiGetResponse(response, types.stream().<Class<?>>map(EntityType::getWrapperClass).toList());
+
+        List<BatchLookupResponse.Result> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            SearchResponseParser.MultiGetItem doc = docs.get(i);
+            results.add(new BatchLookupResponse.Result(types.get(i).getName(), items.get(i).id(),
+                doc.found(), doc.source(), doc.error()));
+        }
+        return BatchLookupResponse.of(results);
+    }
+
+    /**
+     * Perform a request asynchronously. Cancelling the returned future aborts the HTTP request.
+     */
+    private <T> CompletableFuture<T> performRequestAsync(Request request, ResponseReader<T> reader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Cancellable cancellable = restClient.performRequestAsync(request, new ResponseListener() {
+            @Override
+            public void onSuccess(Response response) {
+                try {
+                    future.complete(reader.read(response));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception exception) {
+                future.completeExceptionally(exception);
+            }
+        });
+        future.whenComplete((result, failure) -> {
+            if (future.isCancelled()) {
+                cancellable.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Converts an Elasticsearch response into a result
+     */
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(Response response) throws IOException;
+    }
+
+    /**
+     * Autocomplete: the best matching titles across all entity types for a typed prefix
+     */
+    public SuggestResponse suggest(String prefix, int size) throws IOException {
+        String query = prefix.trim();
+        Request request = new Request("POST", "/" + ALL_INDICES + "/_search");
+        request.setEntity(new NByteArrayEntity(SUGGEST_TEMPLATE.render(size, QueryTemplate.escape(query)),
+            ContentType.APPLICATION_JSON));
+        Response response = restClient.performRequest(request);
+
+        List<SuggestResponse.Suggestion> suggestions = new ArrayList<>();
+        try (InputStream content = response.getEntity().getContent()) {
+            for (SearchResponseParser.TitleHit hit : responseParser.parseTitleHits(content)) {
+                Optional<EntityType> type = IndexAliasService.typeOf(hit.index());
+                if (type.isPresent() && hit.title() != null) {
+                    suggestions.add(new SuggestResponse.Suggestion(type.get().getName(), hit.id(), hit.title(), hit.score()));
+                }
+            }
+        }
+        return new SuggestResponse(query, suggestions);
+    }
+
+    /**
+     * First page of a cursor-paged search of one type, or of all types when {@code type} is blank.
+     *
+     * Pages are read from a point in time, so they are consistent with each other even while
+     * the data is reloaded, and each page continues after the last hit of the previous one
+     * ({@code search_after}), so page 100 costs the same as page 1. Hits are ordered by score,
+     * then by ID.
+     */
+    public SearchPageResponse searchPage(String type, String query, int size, SearchMode mode) throws IOException {
+        String typeName = type == null || type.isBlank() ? null : EntityType.fromString(type).getName();
+        String indices = typeName == null ? ALL_INDICES : EntityType.fromString(typeName).getIndex();
+        return fetchPage(new SearchCursor(typeName, query, mode, size, openPointInTime(indices), null));
+    }
+
+    /**
+     * Next page of a cursor-paged search
+     * @param cursor token returned with the previous page
+     * @throws IllegalArgumentException if the cursor is invalid or has expired
+     */
+    public SearchPageResponse nextPage(String cursor) throws IOException {
+        return fetchPage(SearchCursor.decode(cursor));
+    }
+
+    private SearchPageResponse fetchPage(SearchCursor position) throws IOException {
+        byte[] body = buildPageQuery(position.query(), position.size(), position.mode(), position.pitId(), keepAlive(),
+            position.searchAfter());
+
+        // A search with a point in time must not name the indices
+        Request request = new Request("POST", "/_search");
+        request.setEntity(new NByteArrayEntity(body, ContentType.APPLICATION_JSON));
+        SearchResponseParser.Page page;
+        try (InputStream content = restClient.performRequest(request).getEntity().getContent()) {
+            page = responseParser.parsePage(content,
+                index -> IndexAliasService.typeOf(index).<Class<?>>map(EntityType::getWrapperClass).orElse(null));
+        } catch (ResponseException e) {
+            if (e.getResponse().getStatusLine().getStatusCode() == 404) {
+                throw new IllegalArgumentException("Cursor has expired, start again without a cursor");
+            }
+            throw e;
+        }
+
+        String pitId = page.pitId() != null ? page.pitId() : position.pitId();
+        List<UnifiedSearchResponse.RankedHit> results = new ArrayList<>(page.hits().size());
+        for (SearchResponseParser.PageHit hit : page.hits()) {
+            String typeName = IndexAliasService.typeOf(hit.index()).map(EntityType::getName).orElse(null);
+            results.add(new UnifiedSearchResponse.RankedHit(typeName, hit.score(), hit.source()));
+        }
+
+        if (page.hits().size() < position.size()) {
+            closePointInTime(pitId);
+            return new SearchPageResponse(results, null);
+        }
+        SearchResponseParser.PageHit last = page.hits().get(page.hits().size() - 1);
+        SearchCursor next = new SearchCursor(position.type(), position.query(), position.mode(), position.size(), pitId, last.sort());
+        return new SearchPageResponse(results, next.encode());
+    }
+
+    /**
+     * Write every document of a type that matches the query to the output as NDJSON, one
+     * {@code _source} per line.
+     *
+     * The documents are read page by page from a point in time in index order
+     * ({@code _shard_doc}, the cheapest sort), and each hit is copied straight from the
+     * Elasticsearch response to the output without being bound to a DTO. Each page is
+     * flushed as soon as it is written, so memory use does not depend on the number of documents.
+     *
+     * @return number of documents written
+     */
+    public long export(EntityType type, String query, SearchMode mode, OutputStream output) throws IOException {
+        int pageSize = searchConfig.paging().exportPageSize();
+        String pitId = openPointInTime(type.getIndex());
+        long exported = 0;
+        try {
+            ArrayNode searchAfter = null;
+            while (true) {
+                byte[] body = buildExportQuery(query, pageSize, mode, pitId, keepAlive(), searchAfter);
+
+                Request request = new Request("POST", "/_search");
+                request.setEntity(new NByteArrayEntity(body, ContentType.APPLICATION_JSON));
+                SearchResponseParser.StreamedPage page;
+                try (InputStream content = restClient.performRequest(request).getEntity().getContent()) {
+                    page = responseParser.writeSources(content, output);
+                }
+                output.flush();
+
+                exported += page.hits();
+                pitId = page.pitId() != null ? page.pitId() : pitId;
+                if (page.hits() < pageSize) {
+                    return exported;
+                }
+                searchAfter = page.lastSort();
+            }
+        } finally {
+            closePointInTime(pitId);
+            LOG.debugf("Exported %d documents from %s", exported, type.getIndex());
+        }
+    }
+
+    /**
+     * Build the query of a cursor page; {@code searchAfter} is null for the first page
+     */
+    static byte[] buildPageQuery(String query, int size, SearchMode mode, String pitId, String keepAlive, ArrayNode searchAfter) {
+        return renderPage(MATCH_ALL_PAGE_TEMPLATE, WRAPPER_PAGE_TEMPLATES, query, size, mode, pitId, keepAlive, searchAfter);
+    }
+
+    /**
+     * Build the query of an export page; {@code searchAfter} is null for the first page
+     */
+    static byte[] buildExportQuery(String query, int size, SearchMode mode, String pitId, String keepAlive, ArrayNode searchAfter) {
+        return renderPage(MATCH_ALL_EXPORT_TEMPLATE, WRAPPER_EXPORT_TEMPLATES, query, size, mode, pitId, keepAlive, searchAfter);
+    }
+
+    /**
+     * Render a page from its precompiled template; only the point in time and the
+     * search_after values change from page to page
+     */
+    private static byte[] renderPage(QueryTemplate matchAll, Map<SearchMode, QueryTemplate> byMode, String query, int size,
+                                     SearchMode mode, String pitId, String keepAlive, ArrayNode searchAfter) {
+        Map<QueryTemplate.Slot, byte[]> raw = new EnumMap<>(QueryTemplate.Slot.class);
+        raw.put(QueryTemplate.Slot.PIT, ("{\"id\":\"" + new String(QueryTemplate.escape(pitId), StandardCharsets.UTF_8)
+            + "\",\"keep_alive\":\"" + keepAlive + "\"}").getBytes(StandardCharsets.UTF_8));
+        if (searchAfter != null) {
+            raw.put(QueryTemplate.Slot.SEARCH_AFTER, (",\"search_after\":" + searchAfter).getBytes(StandardCharsets.UTF_8));
+        }
+        QueryTemplate template = query == null || query.trim().isEmpty() ? matchAll : byMode.get(mode);
+        return template.render(size, QueryTemplate.escape(query), raw);
+    }
+
+    /**
+     * Open a point in time on the indices (or aliases) and return its ID
+     */
+    private String openPointInTime(String indices) throws IOException {
+        Request open = new Request("POST", "/" + indices + "/_pit");
+        open.addParameter("keep_alive", keepAlive());
+        try (InputStream content = restClient.performRequest(open).getEntity().getContent()) {
+            return objectMapper.readTree(content).path("id").asText();
+        }
+    }
+
+    /**
+     * Release the point in time of a finished paged search or export instead of waiting for it to expire
+     */
+    private void closePointInTime(String pitId) {
+        Request close = new Request("DELETE", "/_pit");
+        close.setJsonEntity(objectMapper.createObjectNode().put("id", pitId).toString());
+        try {
+            restClient.performRequest(close);
+        } catch (IOException e) {
+            LOG.debugf("Could not close point in time: %s", e.getMessage());
+        }
+    }
 
-        return UnifiedSearchResponse.of(wrappedMatches, wrappedGameInstances, wrappedQuizzes, wrappedPlayerGames);
+    private String keepAlive() {
+        return searchConfig.paging().keepAlive().toMillis() + "ms";
+    }
+
+    /**
+     * Result cache size and hit/miss counters
+     */
+    public Map<String, Object> getCacheStats() {
+        return searchResultCache.stats();
+    }
+
+    /**
+     * In-flight searches and how many requests were saved by coalescing
+     */
+    public Map<String, Object> getCoalescingStats() {
+        return searchCoalescer.stats();
     }
 
     /**
@@ -336,6 +1320,26 @@ public class SearchService {
      * Unified search method that handles all entity types with search mode
      */
     public Object unifiedSearch(String type, Long id, String query, int size, SearchMode mode) throws IOException {
+        return unifiedSearch(type, id, query, size, mode, SearchView.DEFAULT);
+    }
+
+    /**
+     * Unified search method that handles all entity types with search mode and view.
+     * Lookups by ID always return the full wrapper.
+     */
+    public Object unifiedSearch(String type, Long id, String query, int size, SearchMode mode, SearchView view) throws IOException {
+        return unifiedSearch(type, id, query, size, mode, view, SearchFilters.NONE);
+    }
+
+    /**
+     * Unified search method that handles all entity types with search mode, view and filters.
+     * Lookups by ID always return the full wrapper and ignore the filters.
+     */
+    public Object unifiedSearch(String type, Long id, String query, int size, SearchMode mode, SearchView view,
+                                SearchFilters filters) throws IOException {
+        if (id == null && (view == SearchView.SUMMARY || !filters.isEmpty())) {
+            return searchCached(EntityType.fromString(type), query, size, mode, view, filters);
+        }
         return switch (type.toLowerCase()) {
             case "matches", "football-matches" -> {
                 if (id != null) {
@@ -370,198 +1374,33 @@ public class SearchService {
     }
 
     /**
-     * Build Elasticsearch search query with default search mode
+     * Build Elasticsearch search query for wrapper objects (searches only wrapper fields)
      */
-    private String buildSearchQuery(String query, int size) {
-        return buildSearchQuery(query, size, SearchMode.DEFAULT);
+    byte[] buildWrapperSearchQuery(String query, int size, SearchMode mode) {
+        return buildWrapperSearchQuery(query, size, mode, SearchView.FULL);
     }
 
     /**
-     * Build Elasticsearch search query with specified search mode
+     * Build Elasticsearch search query for wrapper objects; the summary view only fetches the wrapper fields
      */
-    private String buildSearchQuery(String query, int size, SearchMode mode) {
-        if (query == null || query.trim().isEmpty()) {
-            return String.format("""
-                {
-                  "size": %d,
-                  "query": {
-                    "match_all": {}
-                  }
-                }
-                """, size);
-        }
-
-        return switch (mode) {
-            case CASE_INSENSITIVE -> buildCaseInsensitiveQuery(query, size);
-            case CASE_SENSITIVE -> buildCaseSensitiveQuery(query, size);
-            case FULL_MATCH -> buildFullMatchQuery(query, size);
-        };
+    byte[] buildWrapperSearchQuery(String query, int size, SearchMode mode, SearchView view) {
+        return buildWrapperSearchQuery(query, size, mode, view, SearchFilters.NONE);
     }
 
     /**
-     * Build Elasticsearch search query for wrapper objects (searches only wrapper fields)
+     * Build Elasticsearch search query for wrapper objects, with the filters in filter context
      */
-    private String buildWrapperSearchQuery(String query, int size, SearchMode mode) {
+    byte[] buildWrapperSearchQuery(String query, int size, SearchMode mode, SearchView view, SearchFilters filters) {
+        boolean summary = view == SearchView.SUMMARY;
+        byte[] filter = filters.clauses();
         if (query == null || query.trim().isEmpty()) {
-            return String.format("""
-                {
-                  "size": %d,
-                  "query": {
-                    "match_all": {}
-                  }
-                }
-                """, size);
-        }
-
-        return switch (mode) {
-            case CASE_INSENSITIVE -> buildWrapperCaseInsensitiveQuery(query, size);
-            case CASE_SENSITIVE -> buildWrapperCaseSensitiveQuery(query, size);
-            case FULL_MATCH -> buildWrapperFullMatchQuery(query, size);
-        };
-    }
-
-    /**
-     * Build case insensitive partial match query (default behavior)
-     */
-    private String buildCaseInsensitiveQuery(String query, int size) {
-        return String.format("""
-            {
-              "size": %d,
-              "query": {
-                "multi_match": {
-                  "query": "%s",
-                  "type": "best_fields",
-                  "fields": ["*"],
-                  "fuzziness": "AUTO"
-                }
-              }
-            }
-            """, size, escapeJsonString(query));
-    }
-
-    /**
-     * Build case sensitive partial match query
-     * Uses a practical approach that works reliably
-     */
-    private String buildCaseSensitiveQuery(String query, int size) {
-        String escapedQuery = escapeJsonString(query);
-
-        return String.format("""
-            {
-              "size": %d,
-              "query": {
-                "bool": {
-                  "should": [
-                    {
-                      "multi_match": {
-                        "query": "%s",
-                        "fields": ["title^3", "gameTitle^3", "name^3", "homeTeam.name^2", "awayTeam.name^2", "competition.name^2", "venue", "referee"],
-                        "type": "best_fields",
-                        "fuzziness": 0
-                      }
-                    },
-                    {
-                      "query_string": {
-                        "query": "%s",
-                        "fields": ["title", "gameTitle", "name", "homeTeam.name", "awayTeam.name", "competition.name", "venue", "referee"],
-                        "default_operator": "AND"
-                      }
-                    }
-                  ]
-                }
-              }
-            }
-            """, size, escapedQuery, escapedQuery);
-    }
-
-    /**
-     * Build full string match query (case insensitive)
-     * Uses exact phrase matching to find complete string matches
-     */
-    private String buildFullMatchQuery(String query, int size) {
-        String escapedQuery = escapeJsonString(query);
-        return String.format("""
-            {
-              "size": %d,
-              "query": {
-                "bool": {
-                  "should": [
-                    {
-                      "match_phrase": {
-                        "title": {
-                          "query": "%s",
-                          "slop": 0
-                        }
-                      }
-                    },
-                    {
-                      "match_phrase": {
-                        "gameTitle": {
-                          "query": "%s",
-                          "slop": 0
-                        }
-                      }
-                    },
-                    {
-                      "match_phrase": {
-                        "name": {
-                          "query": "%s",
-                          "slop": 0
-                        }
-                      }
-                    },
-                    {
-                      "match_phrase": {
-                        "homeTeam.name": {
-                          "query": "%s",
-                          "slop": 0
-                        }
-                      }
-                    },
-                    {
-                      "match_phrase": {
-                        "awayTeam.name": {
-                          "query": "%s",
-                          "slop": 0
-                        }
-                      }
-                    },
-                    {
-                      "match_phrase": {
-                        "competition.name": {
-                          "query": "%s",
-                          "slop": 0
-                        }
-                      }
-                    },
-                    {
-                      "match_phrase": {
-                        "venue": {
-                          "query": "%s",
-                          "slop": 0
-                        }
-                      }
-                    }
-                  ],
-                  "minimum_should_match": 1
-                }
-              }
+            if (filter.length > 0) {
+                return (summary ? FILTERED_SUMMARY_TEMPLATE : FILTERED_TEMPLATE).render(size, QueryTemplate.escape(""), filter);
             }
-            """, size, escapedQuery, escapedQuery, escapedQuery, escapedQuery, escapedQuery, escapedQuery, escapedQuery);
-    }
-
-    /**
-     * Escape special characters in JSON strings
-     */
-    private String escapeJsonString(String input) {
-        if (input == null) {
-            return "";
+            return (summary ? MATCH_ALL_SUMMARY_TEMPLATE : MATCH_ALL_TEMPLATE).render(size, QueryTemplate.escape(""));
         }
-        return input.replace("\\", "\\\\")
-                   .replace("\"", "\\\"")
-                   .replace("\n", "\\n")
-                   .replace("\r", "\\r")
-                   .replace("\t", "\\t");
+
+        return (summary ? WRAPPER_SUMMARY_TEMPLATES : WRAPPER_TEMPLATES).get(mode).render(size, QueryTemplate.escape(query), filter);
     }
 
     /**
@@ -607,195 +1446,48 @@ public class SearchService {
                    .replace("\t", "\\t");
     }
 
-    /**
-     * Build wrapper-specific case insensitive query (searches only wrapper fields)
-     */
-    private String buildWrapperCaseInsensitiveQuery(String query, int size) {
-        return String.format("""
-            {
-              "size": %d,
-              "query": {
-                "bool": {
-                  "should": [
-                    {
-                      "match": {
-                        "id": {
-                          "query": "%s",
-                          "fuzziness": "AUTO"
-                        }
-                      }
-                    },
-                    {
-                      "match": {
-                        "searchTitle": {
-                          "query": "%s",
-                          "fuzziness": "AUTO"
-                        }
-                      }
-                    },
-                    {
-                      "match": {
-                        "searchDescription": {
-                          "query": "%s",
-                          "fuzziness": "AUTO"
-                        }
-                      }
-                    },
-                    {
-                      "terms": {
-                        "tags": ["%s"]
-                      }
-                    },
-                    {
-                      "terms": {
-                        "flags": ["%s"]
-                      }
-                    },
-                    {
-                      "terms": {
-                        "entityIds": ["%s"]
-                      }
-                    }
-                  ],
-                  "minimum_should_match": 1
-                }
-              }
-            }
-            """, size, query, query, query, query, query, query);
-    }
-
-    /**
-     * Build wrapper-specific case sensitive query (searches only wrapper fields)
-     */
-    private String buildWrapperCaseSensitiveQuery(String query, int size) {
-        return String.format("""
-            {
-              "size": %d,
-              "query": {
-                "bool": {
-                  "should": [
-                    {
-                      "term": {
-                        "id.keyword": "%s"
-                      }
-                    },
-                    {
-                      "match_phrase": {
-                        "searchTitle": "%s"
-                      }
-                    },
-                    {
-                      "match_phrase": {
-                        "searchDescription": "%s"
-                      }
-                    },
-                    {
-                      "term": {
-                        "tags.keyword": "%s"
-                      }
-                    },
-                    {
-                      "term": {
-                        "flags.keyword": "%s"
-                      }
-                    },
-                    {
-                      "term": {
-                        "entityIds.keyword": "%s"
-                      }
-                    }
-                  ],
-                  "minimum_should_match": 1
-                }
-              }
-            }
-            """, size, query, query, query, query, query, query);
-    }
-
-    /**
-     * Build wrapper-specific full match query (searches only wrapper fields)
-     */
-    private String buildWrapperFullMatchQuery(String query, int size) {
-        return String.format("""
-            {
-              "size": %d,
-              "query": {
-                "bool": {
-                  "should": [
-                    {
-                      "term": {
-                        "id.keyword": "%s"
-                      }
-                    },
-                    {
-                      "match_phrase": {
-                        "searchTitle": "%s"
-                      }
-                    },
-                    {
-                      "match_phrase": {
-                        "searchDescription": "%s"
-                      }
-                    },
-                    {
-                      "term": {
-                        "tags.keyword": "%s"
-                      }
-                    },
-                    {
-                      "term": {
-                        "flags.keyword": "%s"
-                      }
-                    },
-                    {
-                      "term": {
-                        "entityIds.keyword": "%s"
-                      }
-                    }
-                  ],
-                  "minimum_should_match": 1
-                }
-              }
-            }
-            """, size, query, query, query, query, query, query);
-    }
-
     /**
      * Parse Elasticsearch response and convert to DTOs
      */
-    @SuppressWarnings("unchecked")
     private <T> List<T> parseSearchResponse(Response response, Class<T> clazz) throws IOException {
-        String responseBody = new String(response.getEntity().getContent().readAllBytes());
-        Map<String, Object> responseMap = objectMapper.readValue(responseBody, Map.class);
+        try (InputStream content = response.getEntity().getContent()) {
+            return responseParser.parseSearchHits(content, clazz);
+        }
+    }
 
-        Map<String, Object> hits = (Map<String, Object>) responseMap.get("hits");
-        List<Map<String, Object>> hitsList = (List<Map<String, Object>>) hits.get("hits");
+    /**
+     * Parse Elasticsearch response into documents with their scores
+     */
+    private List<SearchResponseParser.ScoredHit> parseScoredSearchResponse(Response response, Class<?> clazz) throws IOException {
+        try (InputStream content = response.getEntity().getContent()) {
+            return responseParser.parseScoredHits(content, clazz);
+        }
+    }
 
-        List<T> results = new ArrayList<>();
-        for (Map<String, Object> hit : hitsList) {
-            Map<String, Object> source = (Map<String, Object>) hit.get("_source");
-            T dto = objectMapper.convertValue(source, clazz);
-            results.add(dto);
+    /**
+     * Parse Elasticsearch _msearch response into the individual search results, in request order
+     */
+    private List<SearchResponseParser.MultiSearchItem> parseMultiSearchResponse(Response response, List<Class<?>> classes) throws IOException {
+        try (InputStream content = response.getEntity().getContent()) {
+            return responseParser.parseMultiSearch(content, classes);
         }
+    }
 
-        return results;
+    /**
+     * Parse Elasticsearch _mget response into the individual lookups, in request order
+     */
+    private List<SearchResponseParser.MultiGetItem> parseMultiGetResponse(Response response, List<Class<?>> classes) throws IOException {
+        try (InputStream content = response.getEntity().getContent()) {
+            return responseParser.parseMultiGet(content, classes);
+        }
     }
 
     /**
      * Parse Elasticsearch GET response and convert to DTO
      */
-    @SuppressWarnings("unchecked")
     private <T> Optional<T> parseGetResponse(Response response, Class<T> clazz) throws IOException {
-        String responseBody = new String(response.getEntity().getContent().readAllBytes());
-        Map<String, Object> responseMap = objectMapper.readValue(responseBody, Map.class);
-
-        Boolean found = (Boolean) responseMap.get("found");
-        if (found != null && found) {
-            Map<String, Object> source = (Map<String, Object>) responseMap.get("_source");
-            T dto = objectMapper.convertValue(source, clazz);
-            return Optional.of(dto);
+        try (InputStream content = response.getEntity().getContent()) {
+            return responseParser.parseGetSource(content, clazz);
         }
-
-        return Optional.empty();
     }
 }
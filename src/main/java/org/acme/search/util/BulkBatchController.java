@@ -0,0 +1,86 @@
+package org.acme.search.util;
+
+import java.time.Duration;
+
+/**
+ * Adaptive _bulk batch sizing.
+ *
+ * Batches are flushed when they reach the current document target or the byte limit,
+ * whichever comes first. The document target follows an AIMD scheme: it grows by a fixed
+ * step while Elasticsearch answers within the target latency, shrinks by a quarter when
+ * it answers slower, and is halved when the cluster rejects work (HTTP 429 or
+ * {@code es_rejected_execution_exception}). Decreases are applied at most once per
+ * target latency, so a burst of slow responses to batches that were already in flight
+ * counts as a single congestion signal.
+ */
+public class BulkBatchController {
+
+    private final int minDocuments;
+    private final int maxDocuments;
+    private final int step;
+    private final long maxBytes;
+    private final long targetLatencyMillis;
+
+    private volatile int targetDocuments;
+    private long lastDecreaseNanos;
+    private boolean decreased;
+
+    public BulkBatchController(int initialDocuments, int minDocuments, int maxDocuments, long maxBytes, Duration targetLatency) {
+        this.minDocuments = Math.max(1, minDocuments);
+        this.maxDocuments = Math.max(this.minDocuments, maxDocuments);
+        this.targetDocuments = clamp(initialDocuments);
+        this.step = Math.max(1, this.targetDocuments / 10);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.targetLatencyMillis = Math.max(1, targetLatency.toMillis());
+    }
+
+    /**
+     * Number of documents after which a batch is sent
+     */
+    public int targetDocuments() {
+        return targetDocuments;
+    }
+
+    /**
+     * Size in bytes after which a batch is sent regardless of its document count
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Record a completed _bulk request
+     * @param tookMillis the {@code took} time reported by Elasticsearch
+     * @param rejectedItems number of items rejected with 429
+     */
+    public synchronized void onResponse(long tookMillis, int rejectedItems) {
+        if (rejectedItems > 0) {
+            decrease(0.5);
+        } else if (tookMillis > targetLatencyMillis) {
+            decrease(0.75);
+        } else {
+            targetDocuments = clamp(targetDocuments + step);
+        }
+    }
+
+    /**
+     * Record a _bulk request that was rejected as a whole
+     */
+    public synchronized void onRejected() {
+        decrease(0.5);
+    }
+
+    private void decrease(double factor) {
+        long now = System.nanoTime();
+        if (decreased && now - lastDecreaseNanos < targetLatencyMillis * 1_000_000L) {
+            return;
+        }
+        targetDocuments = clamp((int) (targetDocuments * factor));
+        lastDecreaseNanos = now;
+        decreased = true;
+    }
+
+    private int clamp(int documents) {
+        return Math.min(maxDocuments, Math.max(minDocuments, documents));
+    }
+}
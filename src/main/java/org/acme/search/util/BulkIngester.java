@@ -0,0 +1,549 @@
+package org.acme.search.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestClient;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pipelined _bulk ingestion.
+ *
+ * Each producer thread builds batches through its own {@link Writer}. Full batches are sent
+ * asynchronously, with at most {@code maxInFlight} requests outstanding across all writers;
+ * a writer that would exceed that blocks until a request completes, which keeps producers
+ * from running ahead of the cluster.
+ *
+ * Action lines and documents are serialized with a {@link JsonGenerator} straight into a
+ * pooled byte buffer, which is handed to the HTTP entity as is; no intermediate Strings
+ * are built. A buffer returns to the pool once its request has completed.
+ *
+ * Batch boundaries come from a {@link BulkBatchController}, which adapts the batch size
+ * to the {@code took} time and rejections reported by Elasticsearch.
+ *
+ * The item results of every response are read in streaming fashion. Only the items that
+ * failed with a transient status (429 and 502-504) are copied into a new batch and resent
+ * with exponential backoff and full jitter; the batch keeps its in-flight slot until all
+ * of its items are done. Items that fail permanently, or run out of attempts, are appended
+ * to a dead-letter NDJSON file as their original action and source lines, so the file can
+ * be replayed with {@code _bulk} as is.
+ */
+public class BulkIngester implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(BulkIngester.class);
+    private static final int LOGGED_FAILURES = 10;
+
+    /**
+     * How failed items are retried
+     */
+    public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+    }
+
+    private final RestClient restClient;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter documentWriter;
+    private final BulkBatchController batchController;
+    private final RetryPolicy retryPolicy;
+    private final Path deadLetterFile;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final Queue<BulkBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService retryScheduler;
+
+    private final AtomicLong sentDocuments = new AtomicLong();
+    private final AtomicLong retriedDocuments = new AtomicLong();
+    private final AtomicLong failedDocuments = new AtomicLong();
+    private final AtomicLong sentRequests = new AtomicLong();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    private OutputStream deadLetters; // guarded by this
+
+    public BulkIngester(RestClient restClient, ObjectMapper objectMapper, BulkBatchController batchController,
+                        int maxInFlight, RetryPolicy retryPolicy, Path deadLetterFile) {
+        this.restClient = restClient;
+        this.objectMapper = objectMapper;
+        // The writer flushes once per batch, not after every document
+        this.documentWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.batchController = batchController;
+        this.retryPolicy = retryPolicy;
+        this.deadLetterFile = deadLetterFile;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.inFlight = new Semaphore(this.maxInFlight);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bulk-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Create a writer for one producer thread. Writers are not thread safe.
+     */
+    public Writer writer() {
+        return new Writer();
+    }
+
+    /**
+     * Number of documents acknowledged by Elasticsearch so far
+     */
+    public long sentDocuments() {
+        return sentDocuments.get();
+    }
+
+    /**
+     * Number of item resends so far (a document retried twice counts twice)
+     */
+    public long retriedDocuments() {
+        return retriedDocuments.get();
+    }
+
+    /**
+     * Number of documents that failed permanently and were written to the dead-letter file
+     */
+    public long failedDocuments() {
+        return failedDocuments.get();
+    }
+
+    /**
+     * Number of _bulk requests completed so far
+     */
+    public long sentRequests() {
+        return sentRequests.get();
+    }
+
+    /**
+     * Wait for all in-flight requests, including retries, and fail if ingestion was aborted.
+     * An interrupt while waiting is rethrown as {@link InterruptedIOException} with the
+     * interrupt flag restored.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            inFlight.acquire(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for in-flight bulk requests");
+        }
+        inFlight.release(maxInFlight);
+        retryScheduler.shutdownNow();
+
+        synchronized (this) {
+            if (deadLetters != null) {
+                deadLetters.close();
+                deadLetters = null;
+                LOG.warnf("%d documents could not be indexed and were written to %s", failedDocuments.get(), deadLetterFile);
+            }
+        }
+
+        Exception error = failure.get();
+        if (error != null) {
+            throw new IOException("Bulk ingestion failed: " + error.getMessage(), error);
+        }
+    }
+
+    private void send(BulkBuffer body) throws IOException, InterruptedException {
+        Exception error = failure.get();
+        if (error != null) {
+            releaseBuffer(body);
+            throw new IOException("Bulk ingestion failed: " + error.getMessage(), error);
+        }
+
+        inFlight.acquire();
+        execute(body, 1);
+    }
+
+    /**
+     * Send a batch; the in-flight permit is held until all of its items are done, including resends
+     */
+    private void execute(BulkBuffer body, int attempt) {
+        Request request = new Request("POST", "/_bulk");
+        request.setEntity(new NByteArrayEntity(body.array(), 0, body.size(), ContentType.APPLICATION_JSON));
+        request.addParameter("refresh", "false"); // Don't refresh after each batch
+
+        try {
+            restClient.performRequestAsync(request, new ResponseListener() {
+                @Override
+                public void onSuccess(Response response) {
+                    // Once handed to handleResult the batch is released there, exactly once
+                    boolean handedOff = false;
+                    try {
+                        BulkResult result = readResult(response);
+                        handedOff = true;
+                        handleResult(body, attempt, result);
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                        if (!handedOff) {
+                            complete(body);
+                        }
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception exception) {
+                    if (isRejected(exception)) {
+                        // Rejected as a whole: every item is retryable
+                        batchController.onRejected();
+                        handleFailedItems(body, attempt, allItems(body.items(), 429, "rejected_execution"));
+                        return;
+                    }
+                    LOG.warnf("Bulk request with %d documents failed: %s", body.items(), exception.getMessage());
+                    failure.compareAndSet(null, exception);
+                    complete(body);
+                }
+            });
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+            complete(body);
+        }
+    }
+
+    /**
+     * Account for a response and end the batch, or resend its retryable items
+     */
+    private void handleResult(BulkBuffer body, int attempt, BulkResult result) {
+        sentRequests.incrementAndGet();
+        sentDocuments.addAndGet(body.items() - result.failures().size());
+        try {
+            batchController.onResponse(result.took(), result.rejected());
+        } finally {
+            if (result.failures().isEmpty()) {
+                complete(body);
+            } else {
+                handleFailedItems(body, attempt, result.failures());
+            }
+        }
+    }
+
+    /**
+     * Resend the retryable items after a backoff and dead-letter the rest. Ends the batch
+     * (releasing its permit) unless a resend was scheduled.
+     */
+    private void handleFailedItems(BulkBuffer body, int attempt, List<ItemFailure> failures) {
+        BulkBuffer retry = null;
+        try {
+            for (ItemFailure itemFailure : failures) {
+                if (isRetryable(itemFailure.status()) && attempt < retryPolicy.maxAttempts()) {
+                    if (retry == null) {
+                        retry = acquireBuffer();
+                    }
+                    retry.copyItem(body, itemFailure.position());
+                } else {
+                    deadLetter(body, itemFailure);
+                }
+            }
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+        }
+
+        releaseBuffer(body);
+        if (retry == null) {
+            inFlight.release();
+            return;
+        }
+
+        BulkBuffer resend = retry;
+        long delay = backoffMillis(attempt);
+        retriedDocuments.addAndGet(resend.items());
+        LOG.debugf("Resending %d failed documents in %d ms (attempt %d)", resend.items(), delay, attempt + 1);
+        try {
+            retryScheduler.schedule(() -> execute(resend, attempt + 1), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            failure.compareAndSet(null, e);
+            complete(resend);
+        }
+    }
+
+    /**
+     * Exponential backoff with full jitter: a random delay up to initial * 2^(attempt - 1), capped
+     */
+    private long backoffMillis(int attempt) {
+        long ceiling = retryPolicy.initialBackoff().toMillis() << Math.min(attempt - 1, 20);
+        ceiling = Math.min(Math.max(1, ceiling), retryPolicy.maxBackoff().toMillis());
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private synchronized void deadLetter(BulkBuffer body, ItemFailure itemFailure) throws IOException {
+        long failed = failedDocuments.incrementAndGet();
+        if (failed <= LOGGED_FAILURES) {
+            LOG.warnf("Document failed with status %d: %s", itemFailure.status(), itemFailure.reason());
+        } else {
+            LOG.debugf("Document failed with status %d: %s", itemFailure.status(), itemFailure.reason());
+        }
+
+        if (deadLetters == null) {
+            deadLetters = new BufferedOutputStream(Files.newOutputStream(deadLetterFile,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        }
+        int start = body.itemStart(itemFailure.position());
+        deadLetters.write(body.array(), start, body.itemEnd(itemFailure.position()) - start);
+    }
+
+    private void complete(BulkBuffer body) {
+        releaseBuffer(body);
+        inFlight.release();
+    }
+
+    private static boolean isRejected(Exception exception) {
+        return exception instanceof ResponseException responseException
+            && responseException.getResponse().getStatusLine().getStatusCode() == 429;
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+
+    private static List<ItemFailure> allItems(int items, int status, String reason) {
+        List<ItemFailure> failures = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            failures.add(new ItemFailure(i, status, reason));
+        }
+        return failures;
+    }
+
+    /**
+     * Failed item of a _bulk request, by position in the request
+     */
+    private record ItemFailure(int position, int status, String reason) {
+    }
+
+    /**
+     * Summary of a _bulk response
+     */
+    private record BulkResult(long took, List<ItemFailure> failures) {
+
+        int rejected() {
+            return (int) failures.stream().filter(itemFailure -> itemFailure.status() == 429).count();
+        }
+    }
+
+    /**
+     * Read {@code took} and the item failures from a _bulk response; items are only
+     * inspected when the response reports errors
+     */
+    private BulkResult readResult(Response response) throws IOException {
+        long took = 0;
+        boolean errors = false;
+        List<ItemFailure> failures = List.of();
+        try (InputStream content = response.getEntity().getContent();
+             JsonParser parser = objectMapper.createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected bulk response");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("took".equals(field)) {
+                    took = parser.getLongValue();
+                } else if ("errors".equals(field)) {
+                    errors = value == JsonToken.VALUE_TRUE;
+                } else if ("items".equals(field) && errors && value == JsonToken.START_ARRAY) {
+                    failures = new ArrayList<>();
+                    int position = 0;
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        ItemFailure itemFailure = readItem(parser, position++);
+                        if (itemFailure != null) {
+                            failures.add(itemFailure);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new BulkResult(took, failures);
+    }
+
+    /**
+     * Read one item ({@code {"index": {..., "status": 429, "error": {...}}}}), positioned on
+     * its START_OBJECT; returns null when the item succeeded
+     */
+    private ItemFailure readItem(JsonParser parser, int position) throws IOException {
+        int status = 0;
+        String reason = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("status".equals(field)) {
+                    status = parser.getIntValue();
+                } else if ("error".equals(field)) {
+                    JsonNode error = objectMapper.readTree(parser);
+                    reason = error.isObject() ? error.path("type").asText() + ": " + error.path("reason").asText() : error.asText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return status >= 300 ? new ItemFailure(position, status, reason) : null;
+    }
+
+    private BulkBuffer acquireBuffer() {
+        BulkBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : new BulkBuffer();
+    }
+
+    private void releaseBuffer(BulkBuffer buffer) {
+        buffer.reset();
+        buffers.offer(buffer);
+    }
+
+    /**
+     * Growable byte buffer whose backing array can be sent without copying. Records where
+     * each item (action line plus source line) starts, so single items can be resent.
+     */
+    private static final class BulkBuffer extends ByteArrayOutputStream {
+
+        private int[] itemOffsets = new int[1024];
+        private int items;
+
+        BulkBuffer() {
+            super(1 << 20);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        int items() {
+            return items;
+        }
+
+        /**
+         * Mark the start of the next item at the given absolute position
+         */
+        void markItem(int position) {
+            if (items == itemOffsets.length) {
+                itemOffsets = Arrays.copyOf(itemOffsets, items * 2);
+            }
+            itemOffsets[items++] = position;
+        }
+
+        int itemStart(int item) {
+            return itemOffsets[item];
+        }
+
+        int itemEnd(int item) {
+            return item + 1 < items ? itemOffsets[item + 1] : count;
+        }
+
+        /**
+         * Append one item of another buffer
+         */
+        void copyItem(BulkBuffer source, int item) {
+            markItem(count);
+            int start = source.itemStart(item);
+            write(source.array(), start, source.itemEnd(item) - start);
+        }
+
+        @Override
+        public synchronized void reset() {
+            super.reset();
+            items = 0;
+        }
+    }
+
+    /**
+     * Collects index actions of one producer into batches
+     */
+    public class Writer implements AutoCloseable {
+
+        private BulkBuffer buffer;
+        private JsonGenerator generator;
+
+        private Writer() {
+        }
+
+        /**
+         * Add an index action for the document, sending the batch once it is full
+         */
+        public void index(String index, String id, Object document) throws IOException, InterruptedException {
+            if (generator == null) {
+                buffer = acquireBuffer();
+                generator = objectMapper.getFactory().createGenerator(buffer);
+                generator.setRootValueSeparator(null);
+            }
+
+            buffer.markItem(buffer.size() + generator.getOutputBuffered());
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("index");
+            generator.writeStringField("_index", index);
+            generator.writeStringField("_id", id);
+            generator.writeEndObject();
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            documentWriter.writeValue(generator, document);
+            generator.writeRaw('\n');
+
+            if (buffer.items() >= batchController.targetDocuments()
+                    || buffer.size() + generator.getOutputBuffered() >= batchController.maxBytes()) {
+                flush();
+            }
+        }
+
+        /**
+         * Send the pending documents, if any
+         */
+        public void flush() throws IOException, InterruptedException {
+            if (generator == null) {
+                return;
+            }
+            generator.close();
+            BulkBuffer body = buffer;
+            generator = null;
+            buffer = null;
+            send(body);
+        }
+
+        /**
+         * Send the pending documents; an interrupt while waiting for an in-flight slot is
+         * rethrown as {@link InterruptedIOException} with the interrupt flag restored
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while sending the last bulk batch");
+            }
+        }
+    }
+}
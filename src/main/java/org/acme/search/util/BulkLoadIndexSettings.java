@@ -0,0 +1,159 @@
+package org.acme.search.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.client.config.RequestConfig;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * Index settings for the duration of a bulk load.
+ *
+ * Before loading, refresh is disabled and replicas are dropped on every target index, so
+ * Elasticsearch neither builds a searchable segment every second nor indexes each document
+ * twice. On {@link #close()} the touched indices are refreshed once, optionally force merged
+ * while they still have no replicas, and their original settings are restored. Indices that
+ * do not exist yet are created with the load settings and restored to the cluster defaults.
+ */
+public class BulkLoadIndexSettings implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(BulkLoadIndexSettings.class);
+
+    private static final String REFRESH_INTERVAL = "index.refresh_interval";
+    private static final String NUMBER_OF_REPLICAS = "index.number_of_replicas";
+
+    // A force merge of a freshly loaded index can take far longer than the default socket timeout
+    private static final Duration FORCE_MERGE_TIMEOUT = Duration.ofMinutes(30);
+
+    private final RestClient restClient;
+    private final ObjectMapper objectMapper;
+    private final OptionalInt forceMergeSegments;
+
+    // Original setting values per index; a null value means the cluster default
+    private final Map<String, Map<String, String>> originals = new LinkedHashMap<>();
+
+    private BulkLoadIndexSettings(RestClient restClient, ObjectMapper objectMapper, OptionalInt forceMergeSegments) {
+        this.restClient = restClient;
+        this.objectMapper = objectMapper;
+        this.forceMergeSegments = forceMergeSegments;
+    }
+
+    /**
+     * Switch the indices to load settings
+     * @param forceMergeSegments segment count to force merge to after the load, if any
+     */
+    public static BulkLoadIndexSettings apply(RestClient restClient, ObjectMapper objectMapper, List<String> indices,
+                                              OptionalInt forceMergeSegments) throws IOException {
+        BulkLoadIndexSettings settings = new BulkLoadIndexSettings(restClient, objectMapper, forceMergeSegments);
+        try {
+            for (String index : indices) {
+                settings.prepare(index);
+            }
+        } catch (IOException | RuntimeException e) {
+            settings.restore();
+            throw e;
+        }
+        return settings;
+    }
+
+    private void prepare(String index) throws IOException {
+        ObjectNode loadSettings = objectMapper.createObjectNode()
+            .put(REFRESH_INTERVAL, "-1")
+            .put(NUMBER_OF_REPLICAS, 0);
+
+        Response exists = restClient.performRequest(new Request("HEAD", "/" + index));
+        if (exists.getStatusLine().getStatusCode() == 404) {
+            Request create = new Request("PUT", "/" + index);
+            create.setJsonEntity(objectMapper.createObjectNode().set("settings", loadSettings).toString());
+            restClient.performRequest(create);
+            originals.put(index, defaults());
+            LOG.debugf("Created index %s with bulk load settings", index);
+            return;
+        }
+
+        Request get = new Request("GET", "/" + index + "/_settings/" + REFRESH_INTERVAL + "," + NUMBER_OF_REPLICAS);
+        get.addParameter("flat_settings", "true");
+        JsonNode current;
+        try (InputStream content = restClient.performRequest(get).getEntity().getContent()) {
+            current = objectMapper.readTree(content).path(index).path("settings");
+        }
+        Map<String, String> original = defaults();
+        original.replaceAll((setting, value) -> current.hasNonNull(setting) ? current.get(setting).asText() : null);
+        originals.put(index, original);
+
+        Request update = new Request("PUT", "/" + index + "/_settings");
+        update.setJsonEntity(loadSettings.toString());
+        restClient.performRequest(update);
+        LOG.debugf("Applied bulk load settings to %s (was %s)", index, original);
+    }
+
+    /**
+     * Refresh and optionally force merge the touched indices, then restore their settings
+     */
+    @Override
+    public void close() throws IOException {
+        if (originals.isEmpty()) {
+            return;
+        }
+        String indices = String.join(",", originals.keySet());
+        try {
+            long startTime = System.currentTimeMillis();
+            restClient.performRequest(new Request("POST", "/" + indices + "/_refresh"));
+            LOG.infof("✓ Refreshed %s in: %d ms", indices, System.currentTimeMillis() - startTime);
+
+            if (forceMergeSegments.isPresent()) {
+                startTime = System.currentTimeMillis();
+                Request forceMerge = new Request("POST", "/" + indices + "/_forcemerge");
+                forceMerge.addParameter("max_num_segments", String.valueOf(forceMergeSegments.getAsInt()));
+                forceMerge.setOptions(RequestOptions.DEFAULT.toBuilder().setRequestConfig(RequestConfig.custom()
+                    .setSocketTimeout((int) FORCE_MERGE_TIMEOUT.toMillis())
+                    .build()));
+                restClient.performRequest(forceMerge);
+                LOG.infof("✓ Force merged %s to %d segments in: %d ms", indices, forceMergeSegments.getAsInt(),
+                    System.currentTimeMillis() - startTime);
+            }
+        } finally {
+            restore();
+        }
+    }
+
+    private void restore() throws IOException {
+        IOException failure = null;
+        for (Map.Entry<String, Map<String, String>> entry : originals.entrySet()) {
+            ObjectNode settings = objectMapper.createObjectNode();
+            entry.getValue().forEach(settings::put); // null resets the setting to its default
+
+            Request update = new Request("PUT", "/" + entry.getKey() + "/_settings");
+            update.setJsonEntity(settings.toString());
+            try {
+                restClient.performRequest(update);
+            } catch (IOException e) {
+                LOG.warnf("Could not restore settings of %s: %s", entry.getKey(), e.getMessage());
+                failure = e;
+            }
+        }
+        originals.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static Map<String, String> defaults() {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put(REFRESH_INTERVAL, null);
+        settings.put(NUMBER_OF_REPLICAS, null);
+        return settings;
+    }
+}
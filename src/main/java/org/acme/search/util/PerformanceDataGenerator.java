@@ -1,6 +1,8 @@
 package org.acme.search.util;
 
 import java.util.HashMap;
+import org.acme.search.config.SampleDataConfig;
+import org.acme.search.enums.EntityType;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.RestClient;
 import org.jboss.logging.Logger;
@@ -10,9 +12,15 @@ import org.acme.search.dto.football.*;
 import org.acme.search.dto.predictor.*;
 import org.acme.search.dto.classicquiz.*;
 import org.acme.search.dto.potm.*;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Utility class for generating performance test data
@@ -22,55 +30,103 @@ public class PerformanceDataGenerator {
     private static final Logger LOG = Logger.getLogger(PerformanceDataGenerator.class);
 
     private final RestClient restClient;
+    private final SampleDataConfig.Bulk bulkConfig;
     private final ObjectMapper objectMapper;
 
-    public PerformanceDataGenerator(RestClient restClient) {
+    public PerformanceDataGenerator(RestClient restClient, SampleDataConfig.Bulk bulkConfig) {
         this.restClient = restClient;
+        this.bulkConfig = bulkConfig;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
     }
     
     /**
-     * Generate and insert bulk performance data
+     * Generate and insert bulk performance data. The four entity types are generated in
+     * parallel and share one bulk ingester, which bounds the number of in-flight requests.
+     * @param indices physical index to write each type into
      */
-    public void generatePerformanceData(int recordsPerType) throws Exception {
+    public void generatePerformanceData(int recordsPerType, Map<EntityType, String> indices) throws Exception {
         LOG.infof("Generating performance data with %d records per type...", recordsPerType);
-        
-        // Insert matches
-        LOG.infof("Inserting %d football matches...", recordsPerType);
-        long matchStartTime = System.currentTimeMillis();
-        insertBulkMatches(recordsPerType);
-        long matchEndTime = System.currentTimeMillis();
-        LOG.infof("✓ Matches inserted in: %d ms", matchEndTime - matchStartTime);
-        
-        // Insert predictions
-        LOG.infof("Inserting %d predictions...", recordsPerType);
-        long predictionStartTime = System.currentTimeMillis();
-        insertBulkPredictions(recordsPerType);
-        long predictionEndTime = System.currentTimeMillis();
-        LOG.infof("✓ Predictions inserted in: %d ms", predictionEndTime - predictionStartTime);
-        
-        // Insert quiz games
-        LOG.infof("Inserting %d quiz games...", recordsPerType);
-        long quizStartTime = System.currentTimeMillis();
-        insertBulkQuizGames(recordsPerType);
-        long quizEndTime = System.currentTimeMillis();
-        LOG.infof("✓ Quiz games inserted in: %d ms", quizEndTime - quizStartTime);
-        
-        // Insert player games
-        LOG.infof("Inserting %d player games...", recordsPerType);
-        long playerStartTime = System.currentTimeMillis();
-        insertBulkPlayerGames(recordsPerType);
-        long playerEndTime = System.currentTimeMillis();
-        LOG.infof("✓ Player games inserted in: %d ms", playerEndTime - playerStartTime);
-        
-        // Refresh indices
-        refreshIndices();
-        
+        long startTime = System.currentTimeMillis();
+
+        BulkBatchController batchController = new BulkBatchController(bulkConfig.batchSize(), bulkConfig.minBatchSize(),
+            bulkConfig.maxBatchSize(), bulkConfig.maxBatchBytes().asLongValue(), bulkConfig.targetLatency());
+
+        BulkIngester.RetryPolicy retryPolicy = new BulkIngester.RetryPolicy(bulkConfig.maxAttempts(),
+            bulkConfig.initialBackoff(), bulkConfig.maxBackoff());
+
+        BulkLoadIndexSettings indexSettings = bulkConfig.optimizeIndexSettings()
+            ? BulkLoadIndexSettings.apply(restClient, objectMapper, List.copyOf(indices.values()),
+                bulkConfig.forceMergeSegments())
+            : null;
+        try {
+            insertAll(recordsPerType, indices, batchController, retryPolicy, startTime);
+        } finally {
+            if (indexSettings != null) {
+                // Refreshes the loaded indices and restores their settings
+                indexSettings.close();
+            }
+        }
+        if (indexSettings == null) {
+            refreshIndices(indices.values());
+        }
+
         LOG.info("Performance data generation completed successfully");
     }
-    
-    private void insertBulkMatches(int count) throws Exception {
+
+    private void insertAll(int recordsPerType, Map<EntityType, String> indices, BulkBatchController batchController,
+                           BulkIngester.RetryPolicy retryPolicy, long startTime) throws Exception {
+        try (BulkIngester ingester = new BulkIngester(restClient, objectMapper, batchController, bulkConfig.maxInFlight(),
+                retryPolicy, Path.of(bulkConfig.deadLetterFile()))) {
+            ExecutorService producers = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> loads = List.of(
+                    producers.submit(() -> load("football matches", indices.get(EntityType.MATCHES), recordsPerType, ingester,
+                        this::insertBulkMatches)),
+                    producers.submit(() -> load("predictions", indices.get(EntityType.PREDICTIONS), recordsPerType, ingester,
+                        this::insertBulkPredictions)),
+                    producers.submit(() -> load("quiz games", indices.get(EntityType.QUIZ_GAMES), recordsPerType, ingester,
+                        this::insertBulkQuizGames)),
+                    producers.submit(() -> load("player games", indices.get(EntityType.PLAYER_GAMES), recordsPerType, ingester,
+                        this::insertBulkPlayerGames))
+                );
+                for (Future<?> load : loads) {
+                    try {
+                        load.get();
+                    } catch (ExecutionException e) {
+                        producers.shutdownNow();
+                        throw e.getCause() instanceof Exception cause ? cause : e;
+                    }
+                }
+            } finally {
+                producers.shutdownNow();
+            }
+
+            LOG.infof("✓ %d documents inserted (%d retried, %d dead-lettered) with %d bulk requests in: %d ms, final batch size %d",
+                ingester.sentDocuments(), ingester.retriedDocuments(), ingester.failedDocuments(), ingester.sentRequests(),
+                System.currentTimeMillis() - startTime, batchController.targetDocuments());
+        }
+    }
+
+    /**
+     * Generates the documents of one entity type on the calling thread
+     */
+    @FunctionalInterface
+    private interface Loader {
+        void load(int count, String index, BulkIngester.Writer writer) throws Exception;
+    }
+
+    private Void load(String name, String index, int count, BulkIngester ingester, Loader loader) throws Exception {
+        LOG.infof("Inserting %d %s...", count, name);
+        long startTime = System.currentTimeMillis();
+        try (BulkIngester.Writer writer = ingester.writer()) {
+            loader.load(count, index, writer);
+        }
+        LOG.infof("✓ %s generated in: %d ms", name, System.currentTimeMillis() - startTime);
+        return null;
+    }
+
+    private void insertBulkMatches(int count, String index, BulkIngester.Writer writer) throws Exception {
         String[] teamNames = {"Barcelona", "Real Madrid", "Manchester United", "Liverpool", "Bayern Munich",
             "Borussia Dortmund", "PSG", "Manchester City", "Arsenal", "Chelsea", "Juventus", "AC Milan",
             "Inter Milan", "Atletico Madrid", "Valencia", "Sevilla", "Napoli", "Roma", "Lazio", "Atalanta"};
@@ -79,9 +135,6 @@ public class PerformanceDataGenerator {
         String[] competitionNames = {"La Liga", "Premier League", "Bundesliga", "Ligue 1", "Serie A", "Champions League"};
         String[] referees = {"Carlos del Cerro Grande", "Michael Oliver", "Felix Brych", "Daniele Orsato", "Clement Turpin"};
 
-        StringBuilder bulkBody = new StringBuilder();
-        int batchSize = 1000; // Process in batches of 1000
-
         for (int i = 0; i < count; i++) {
             String id = String.valueOf(1000000L + i); // Start from 1M to avoid conflicts
             String homeTeamName = teamNames[i % teamNames.length];
@@ -116,33 +169,20 @@ public class PerformanceDataGenerator {
                 isFinished ? "90" : null, false, false
             );
 
-            // Create wrapper and serialize
+            // Create wrapper and queue the index action
             MatchWrapper wrapper = MatchWrapper.of(match);
-            String wrapperJson = objectMapper.writeValueAsString(wrapper);
-
-            // Create index action
-            bulkBody.append(String.format("{\"index\":{\"_index\":\"football_matches\",\"_id\":\"%s\"}}\n", "fb:m:" + id));
-            bulkBody.append(wrapperJson).append("\n");
-
-            // Send batch when we reach batch size or at the end
-            if ((i + 1) % batchSize == 0 || i == count - 1) {
-                sendBulkRequest(bulkBody.toString());
-                bulkBody.setLength(0); // Clear the buffer
+            writer.index(index, "fb:m:" + id, wrapper);
 
-                if ((i + 1) % 10000 == 0) {
-                    LOG.infof("  Processed %d/%d matches...", i + 1, count);
-                }
+            if ((i + 1) % 10000 == 0) {
+                LOG.infof("  Processed %d/%d matches...", i + 1, count);
             }
         }
     }
     
-    private void insertBulkPredictions(int count) throws Exception {
+    private void insertBulkPredictions(int count, String index, BulkIngester.Writer writer) throws Exception {
         String[] userIds = {"user1", "user2", "user3", "user4", "user5", "user6", "user7", "user8", "user9", "user10"};
         String[] outcomes = {"HOME_WIN", "AWAY_WIN", "DRAW"};
 
-        StringBuilder bulkBody = new StringBuilder();
-        int batchSize = 1000;
-
         for (int i = 0; i < count; i++) {
             long id = 2000000L + i; // Start from 2M
             long matchId = 1000000L + (i % count); // Reference match IDs
@@ -154,34 +194,23 @@ public class PerformanceDataGenerator {
                 LocalDateTime.parse("2024-01-15T19:00:00"), 50 + (i % 50), (i % 2 == 0),
                 null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null);
 
-            // Create wrapper and serialize
+            // Create wrapper and queue the index action
             GameInstanceWrapper wrapper = GameInstanceWrapper.of(prediction);
-            String wrapperJson = objectMapper.writeValueAsString(wrapper);
-
-            bulkBody.append(String.format("{\"index\":{\"_index\":\"predictions\",\"_id\":\"%d\"}}\n", id));
-            bulkBody.append(wrapperJson).append("\n");
+            writer.index(index, String.valueOf(id), wrapper);
 
-            if ((i + 1) % batchSize == 0 || i == count - 1) {
-                sendBulkRequest(bulkBody.toString());
-                bulkBody.setLength(0);
-
-                if ((i + 1) % 10000 == 0) {
-                    LOG.infof("  Processed %d/%d predictions...", i + 1, count);
-                }
+            if ((i + 1) % 10000 == 0) {
+                LOG.infof("  Processed %d/%d predictions...", i + 1, count);
             }
         }
     }
 
-    private void insertBulkQuizGames(int count) throws Exception {
+    private void insertBulkQuizGames(int count, String index, BulkIngester.Writer writer) throws Exception {
         String[] titles = {"Football Trivia", "Premier League Quiz", "Champions League Facts", "World Cup History",
             "La Liga Knowledge", "Bundesliga Quiz", "Serie A Test", "Ligue 1 Facts", "European Football",
             "International Football", "Club History", "Player Stats", "Manager Quiz", "Stadium Facts"};
         String[] categories = {"Sports", "Football", "History", "Statistics", "Trivia"};
         String[] creators = {"admin", "quiz_master", "football_expert", "trivia_king", "sports_guru"};
 
-        StringBuilder bulkBody = new StringBuilder();
-        int batchSize = 1000;
-
         for (int i = 0; i < count; i++) {
             long id = 3000000L + i; // Start from 3M
             String title = titles[i % titles.length] + " " + (i + 1);
@@ -194,34 +223,23 @@ public class PerformanceDataGenerator {
                 category, 1 + (i % 5), 300 + (i % 300), LocalDateTime.parse("2024-01-15T10:00:00"), creator, true,
                 null, null, 0, 0, null, null, null, 0, null, null, 0.0f, 0, null, null, false, null, null, 0, 0, null);
 
-            // Create wrapper and serialize
+            // Create wrapper and queue the index action
             ClassicQuizWrapper wrapper = ClassicQuizWrapper.of(quiz);
-            String wrapperJson = objectMapper.writeValueAsString(wrapper);
+            writer.index(index, String.valueOf(id), wrapper);
 
-            bulkBody.append(String.format("{\"index\":{\"_index\":\"quiz_games\",\"_id\":\"%d\"}}\n", id));
-            bulkBody.append(wrapperJson).append("\n");
-
-            if ((i + 1) % batchSize == 0 || i == count - 1) {
-                sendBulkRequest(bulkBody.toString());
-                bulkBody.setLength(0);
-
-                if ((i + 1) % 10000 == 0) {
-                    LOG.infof("  Processed %d/%d quiz games...", i + 1, count);
-                }
+            if ((i + 1) % 10000 == 0) {
+                LOG.infof("  Processed %d/%d quiz games...", i + 1, count);
             }
         }
     }
 
-    private void insertBulkPlayerGames(int count) throws Exception {
+    private void insertBulkPlayerGames(int count, String index, BulkIngester.Writer writer) throws Exception {
         String[] players = {"Lionel Messi", "Cristiano Ronaldo", "Kylian Mbappe", "Erling Haaland", "Neymar Jr",
             "Kevin De Bruyne", "Mohamed Salah", "Robert Lewandowski", "Karim Benzema", "Luka Modric",
             "Virgil van Dijk", "Sadio Mane", "Bruno Fernandes", "Harry Kane", "Son Heung-min"};
         String[] userIds = {"user1", "user2", "user3", "user4", "user5", "user6", "user7", "user8", "user9", "user10"};
         String[] statuses = {"COMPLETED", "ACTIVE", "EXPIRED"};
 
-        StringBuilder bulkBody = new StringBuilder();
-        int batchSize = 1000;
-
         for (int i = 0; i < count; i++) {
             long id = 4000000L + i; // Start from 4M
             long matchId = 1000000L + (i % count); // Reference match IDs
@@ -236,41 +254,20 @@ public class PerformanceDataGenerator {
                        players[(i + 2) % players.length], players[(i + 3) % players.length]),
                   i % 20,  "ACTIVE", new HashMap<>());
 
-            // Create wrapper and serialize
+            // Create wrapper and queue the index action
             PlayerOfTheMatchWrapper wrapper = PlayerOfTheMatchWrapper.of(playerGame);
-            String wrapperJson = objectMapper.writeValueAsString(wrapper);
-
-            bulkBody.append(String.format("{\"index\":{\"_index\":\"player_games\",\"_id\":\"%d\"}}\n", id));
-            bulkBody.append(wrapperJson).append("\n");
+            writer.index(index, String.valueOf(id), wrapper);
 
-            if ((i + 1) % batchSize == 0 || i == count - 1) {
-                sendBulkRequest(bulkBody.toString());
-                bulkBody.setLength(0);
-
-                if ((i + 1) % 10000 == 0) {
-                    LOG.infof("  Processed %d/%d player games...", i + 1, count);
-                }
+            if ((i + 1) % 10000 == 0) {
+                LOG.infof("  Processed %d/%d player games...", i + 1, count);
             }
         }
     }
 
-    private void sendBulkRequest(String bulkBody) throws Exception {
-        Request request = new Request("POST", "/_bulk");
-        request.setJsonEntity(bulkBody);
-        request.addParameter("refresh", "false"); // Don't refresh after each batch
-
-        var response = restClient.performRequest(request);
-
-        // Check for errors in the response
-        if (response.getStatusLine().getStatusCode() != 200) {
-            throw new RuntimeException("Bulk request failed with status: " + response.getStatusLine().getStatusCode());
-        }
-    }
-
-    private void refreshIndices() throws Exception {
+    private void refreshIndices(Collection<String> indices) throws Exception {
         LOG.info("Refreshing Elasticsearch indices...");
 
-        Request request = new Request("POST", "/_refresh");
+        Request request = new Request("POST", "/" + String.join(",", indices) + "/_refresh");
         var response = restClient.performRequest(request);
 
         if (response.getStatusLine().getStatusCode() != 200) {
@@ -278,8 +275,5 @@ public class PerformanceDataGenerator {
         } else {
             LOG.info("Indices refreshed successfully");
         }
-
-        // Wait a bit more for indexing to complete
-        Thread.sleep(5000);
     }
 }
@@ -21,6 +21,16 @@ class SampleDataConfigTest {
         assertTrue(sampleDataConfig.recordsPerType() > 0, "Records per type should be positive");
     }
 
+    @Test
+    void testBulkConfiguration() {
+        assertTrue(sampleDataConfig.bulk().batchSize() > 0, "Bulk batch size should be positive");
+        assertTrue(sampleDataConfig.bulk().maxInFlight() > 0, "Bulk in-flight limit should be positive");
+        assertTrue(sampleDataConfig.bulk().maxAttempts() > 0, "Bulk max attempts should be positive");
+        assertFalse(sampleDataConfig.bulk().initialBackoff().compareTo(sampleDataConfig.bulk().maxBackoff()) > 0,
+            "Initial backoff should not exceed the max backoff");
+        assertTrue(sampleDataConfig.bulk().optimizeIndexSettings(), "Load index settings should be on by default");
+    }
+
     @Test
     void testModeEnum() {
         // Test that all enum values are available
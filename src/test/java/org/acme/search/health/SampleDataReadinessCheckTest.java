@@ -0,0 +1,23 @@
+package org.acme.search.health;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.anyOf;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+
+@QuarkusTest
+class SampleDataReadinessCheckTest {
+
+    @Test
+    void testReadinessReportsSampleData() {
+        // Ready (200) once the sample data is loaded, 503 while it is still loading
+        given()
+            .when().get("/q/health/ready")
+            .then()
+            .statusCode(anyOf(is(200), is(503)))
+            .body("checks.name", hasItem("sample-data"));
+    }
+}
@@ -0,0 +1,62 @@
+package org.acme.search.resource;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+@QuarkusTest
+class ReactiveSearchResourceTest {
+
+    @Test
+    void testReactiveSearchAllTypes() {
+        given()
+            .queryParam("q", "Barcelona")
+            .when().get("/api/reactive/search")
+            .then()
+            .statusCode(anyOf(is(200), is(500)))
+            .body(anyOf(containsString("incompleteTypes"), containsString("error")));
+    }
+
+    @Test
+    void testReactiveSearchByType() {
+        given()
+            .queryParam("type", "matches")
+            .queryParam("q", "Barcelona")
+            .when().get("/api/reactive/search")
+            .then()
+            .statusCode(anyOf(is(200), is(500)));
+    }
+
+    @Test
+    void testReactiveSearchUnknownType() {
+        given()
+            .queryParam("type", "unknown")
+            .when().get("/api/reactive/search")
+            .then()
+            .statusCode(400)
+            .body("error", containsString("Unsupported type"));
+    }
+
+    @Test
+    void testReactiveSearchInvalidMode() {
+        given()
+            .queryParam("q", "test")
+            .queryParam("mode", "invalid_mode")
+            .when().get("/api/reactive/search")
+            .then()
+            .statusCode(400)
+            .body("error", containsString("Unknown search mode"));
+    }
+
+    @Test
+    void testVirtualThreadSearch() {
+        given()
+            .queryParam("type", "predictions")
+            .queryParam("q", "test")
+            .when().get("/api/vt/search")
+            .then()
+            .statusCode(anyOf(is(200), is(500)));
+    }
+}
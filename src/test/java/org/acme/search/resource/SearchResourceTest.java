@@ -16,7 +16,9 @@ import java.util.List;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.anyOf;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.hasItems;
 
@@ -587,6 +589,174 @@ class SearchResourceTest {
             .statusCode(anyOf(is(200), is(500)));
     }
 
+    @Test
+    void testSearchAllTypesReportsIncompleteTypes() {
+        // Unified search always reports which types (if any) missed the deadline
+        given()
+            .queryParam("q", "Barcelona")
+            .when().get("/api/search")
+            .then()
+            .log().body()
+            .statusCode(anyOf(is(200), is(500)))
+            .body(anyOf(containsString("incompleteTypes"), containsString("error")));
+    }
+
+    @Test
+    void testFindByIdsReturnsResultsInRequestOrder() {
+        given()
+            .contentType("application/json")
+            .body("""
+                {"items": [
+                  {"type": "predictions", "id": "999999"},
+                  {"type": "matches", "id": "fb:m:999999"}
+                ]}
+                """)
+            .when().post("/api/search/ids")
+            .then()
+            .log().body()
+            .statusCode(anyOf(is(200), is(500)))
+            .body(anyOf(containsString("\"id\":\"999999\""), containsString("error")));
+    }
+
+    @Test
+    void testFindByIdsRejectsUnknownType() {
+        given()
+            .contentType("application/json")
+            .body("{\"items\": [{\"type\": \"unknown\", \"id\": \"1\"}]}")
+            .when().post("/api/search/ids")
+            .then()
+            .statusCode(400)
+            .body("error", containsString("Unsupported type"));
+    }
+
+    @Test
+    void testFindByIdsRejectsEmptyRequest() {
+        given()
+            .contentType("application/json")
+            .body("{\"items\": []}")
+            .when().post("/api/search/ids")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    void testGetSearchStats() {
+        given()
+            .when().get("/api/search/stats")
+            .then()
+            .statusCode(200)
+            .body("cache.hits", notNullValue())
+            .body("cache.misses", notNullValue())
+            .body("cache.size", notNullValue());
+    }
+
+    @Test
+    void testSuggest() {
+        given()
+            .queryParam("q", "Barc")
+            .queryParam("size", "5")
+            .when().get("/api/suggest")
+            .then()
+            .statusCode(anyOf(is(200), is(500)))
+            .body(anyOf(containsString("suggestions"), containsString("error")));
+    }
+
+    @Test
+    void testSuggestRequiresQuery() {
+        given()
+            .when().get("/api/suggest")
+            .then()
+            .statusCode(400)
+            .body("error", containsString("'q'"));
+    }
+
+    @Test
+    void testSearchPage() {
+        given()
+            .queryParam("type", "matches")
+            .queryParam("q", "Barcelona")
+            .queryParam("size", 5)
+            .when().get("/api/search/page")
+            .then()
+            .log().body()
+            .statusCode(anyOf(is(200), is(500)))
+            .body(anyOf(containsString("results"), containsString("error")));
+    }
+
+    @Test
+    void testSearchPageRejectsInvalidCursor() {
+        given()
+            .queryParam("cursor", "not-a-cursor")
+            .when().get("/api/search/page")
+            .then()
+            .statusCode(400)
+            .body("error", containsString("cursor"));
+    }
+
+    @Test
+    void testExport() {
+        given()
+            .queryParam("type", "predictions")
+            .when().get("/api/export")
+            .then()
+            .statusCode(anyOf(is(200), is(500)));
+    }
+
+    @Test
+    void testExportRequiresType() {
+        given()
+            .when().get("/api/export")
+            .then()
+            .statusCode(400)
+            .body("error", containsString("'type'"));
+    }
+
+    @Test
+    void testSearchSummaryView() {
+        given()
+            .queryParam("type", "quiz-games")
+            .queryParam("q", "quiz")
+            .queryParam("view", "summary")
+            .when().get("/api/search")
+            .then()
+            .statusCode(anyOf(is(200), is(500)))
+            .body(not(containsString("\"data\"")));
+    }
+
+    @Test
+    void testSearchInvalidView() {
+        given()
+            .queryParam("q", "quiz")
+            .queryParam("view", "compact")
+            .when().get("/api/search")
+            .then()
+            .statusCode(400)
+            .body("error", containsString("view"));
+    }
+
+    @Test
+    void testSearchWithFilters() {
+        given()
+            .queryParam("type", "matches")
+            .queryParam("status", "finished,scheduled")
+            .queryParam("kickoffFrom", "2025-01-01")
+            .when().get("/api/search")
+            .then()
+            .statusCode(anyOf(is(200), is(500)));
+    }
+
+    @Test
+    void testSearchInvalidKickoffRange() {
+        given()
+            .queryParam("q", "Barcelona")
+            .queryParam("kickoffFrom", "2025-06-07")
+            .queryParam("kickoffTo", "2025-06-01")
+            .when().get("/api/search")
+            .then()
+            .statusCode(400)
+            .body("error", containsString("kickoffFrom"));
+    }
+
     @Test
     void testSearchAllTypesWithIdShouldFail() {
         // Test that ID-based search without type returns 400
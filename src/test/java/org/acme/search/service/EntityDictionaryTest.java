@@ -0,0 +1,65 @@
+package org.acme.search.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityDictionaryTest {
+
+    private static final EntityDictionary.Entity BARCELONA = team("fb:t:0", "Barcelona");
+    private static final EntityDictionary.Entity REAL_MADRID = team("fb:t:1", "Real Madrid");
+    private static final EntityDictionary.Entity ATLETICO = team("fb:t:13", "Atletico Madrid");
+    private static final EntityDictionary.Entity LA_LIGA =
+        new EntityDictionary.Entity(EntityDictionary.Kind.COMPETITION, "fb:c:0", "La Liga");
+
+    private EntityDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        dictionary = new EntityDictionary();
+        dictionary.install(List.of(
+            new EntityDictionary.Term("Barcelona", BARCELONA),
+            new EntityDictionary.Term("Barça", BARCELONA),
+            new EntityDictionary.Term("Real Madrid", REAL_MADRID),
+            new EntityDictionary.Term("Real", REAL_MADRID),
+            new EntityDictionary.Term("Atlético Madrid", ATLETICO),
+            new EntityDictionary.Term("La Liga", LA_LIGA)
+        ));
+    }
+
+    @Test
+    void testPrefixLookup() {
+        assertEquals(List.of(BARCELONA), dictionary.lookup("BAR", 10));
+        assertEquals(List.of(REAL_MADRID, ATLETICO), dictionary.lookup("mad", 10));
+        assertEquals(1, dictionary.lookup("mad", 1).size());
+        assertEquals(List.of(LA_LIGA), dictionary.lookup("lig", 10));
+        assertTrue(dictionary.lookup("xyz", 10).isEmpty());
+    }
+
+    @Test
+    void testResolve() {
+        assertEquals(BARCELONA, dictionary.resolve("barca").orElseThrow());
+        assertEquals(ATLETICO, dictionary.resolve("atletico").orElseThrow());
+        assertEquals(REAL_MADRID, dictionary.resolve("real").orElseThrow());
+        // "madrid" is a word of two teams
+        assertTrue(dictionary.resolve("madrid").isEmpty());
+    }
+
+    @Test
+    void testStatsCountHits() {
+        dictionary.lookup("bar", 10);
+        dictionary.lookup("xyz", 10);
+
+        assertEquals(4, dictionary.stats().get("entities"));
+        assertEquals(2L, dictionary.stats().get("lookups"));
+        assertEquals(1L, dictionary.stats().get("hits"));
+        assertEquals(0.5, dictionary.stats().get("hitRatio"));
+    }
+
+    private static EntityDictionary.Entity team(String id, String name) {
+        return new EntityDictionary.Entity(EntityDictionary.Kind.TEAM, id, name);
+    }
+}
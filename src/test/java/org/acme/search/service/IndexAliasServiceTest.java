@@ -0,0 +1,25 @@
+package org.acme.search.service;
+
+import org.acme.search.enums.EntityType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexAliasServiceTest {
+
+    @Test
+    void testPhysicalIndexNames() {
+        String index = IndexAliasService.physicalIndex(EntityType.QUIZ_GAMES, 3);
+
+        assertEquals("quiz_games_v3", index);
+        assertEquals(3, IndexAliasService.generationOf(EntityType.QUIZ_GAMES, index));
+    }
+
+    @Test
+    void testOtherIndicesAreNotGenerations() {
+        assertEquals(0, IndexAliasService.generationOf(EntityType.MATCHES, "football_matches"));
+        assertEquals(0, IndexAliasService.generationOf(EntityType.MATCHES, "football_matches_v"));
+        assertEquals(0, IndexAliasService.generationOf(EntityType.MATCHES, "football_matches_vx"));
+        assertEquals(0, IndexAliasService.generationOf(EntityType.MATCHES, "predictions_v1"));
+    }
+}
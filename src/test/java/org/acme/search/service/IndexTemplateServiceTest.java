@@ -0,0 +1,56 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.acme.search.enums.EntityType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexTemplateServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testTemplateMapsWrapperFields() throws Exception {
+        JsonNode template = objectMapper.readTree(IndexTemplateService.templateFor(EntityType.MATCHES));
+
+        assertEquals("football_matches*", template.path("index_patterns").get(0).asText());
+        assertEquals(IndexTemplateService.TEMPLATE_VERSION, template.path("version").asInt());
+
+        JsonNode properties = template.path("template").path("mappings").path("properties");
+        assertEquals("keyword", properties.path("tags").path("type").asText());
+        assertEquals("keyword", properties.path("flags").path("type").asText());
+        assertEquals("keyword", properties.path("entityIds").path("type").asText());
+        assertEquals("keyword", properties.path("id").path("fields").path("keyword").path("type").asText());
+        assertEquals("search_text", properties.path("searchTitle").path("analyzer").asText());
+        assertEquals("search_as_you_type", properties.path("suggest").path("type").asText());
+        assertEquals("suggest", properties.path("searchTitle").path("copy_to").asText());
+
+        JsonNode data = properties.path("data");
+        assertFalse(data.path("dynamic").asBoolean(true), "data fields should not be mapped dynamically");
+        assertEquals("suggest", data.path("properties").path("competition").path("properties").path("name").path("copy_to").asText());
+    }
+
+    @Test
+    void testFilterAliasesPointAtTheDataOfEachType() throws Exception {
+        JsonNode matches = objectMapper.readTree(IndexTemplateService.templateFor(EntityType.MATCHES))
+            .path("template").path("mappings").path("properties");
+        assertEquals("data.status.type", matches.path("filter").path("properties").path("status").path("path").asText());
+        assertEquals("filter_keyword", matches.path("data").path("properties").path("status").path("properties").path("type").path("normalizer").asText());
+        assertEquals("date", matches.path("data").path("properties").path("kickoffAt").path("type").asText());
+        assertEquals("suggest", matches.path("data").path("properties").path("competition").path("properties").path("name").path("copy_to").asText());
+        assertTrue(matches.path("filter").path("properties").path("gameType").isMissingNode());
+
+        JsonNode playerGames = objectMapper.readTree(IndexTemplateService.templateFor(EntityType.PLAYER_GAMES))
+            .path("template").path("mappings").path("properties");
+        assertEquals("data.gameStatus", playerGames.path("filter").path("properties").path("status").path("path").asText());
+        assertEquals("alias", playerGames.path("filter").path("properties").path("status").path("type").asText());
+
+        for (EntityType type : EntityType.values()) {
+            JsonNode aliases = objectMapper.readTree(IndexTemplateService.templateFor(type))
+                .path("template").path("mappings").path("properties").path("filter").path("properties");
+            assertTrue(aliases.has(SearchFilters.STATUS_FIELD.substring("filter.".length())), type.name());
+        }
+    }
+}
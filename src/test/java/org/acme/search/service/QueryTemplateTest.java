@@ -0,0 +1,179 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.acme.search.enums.SearchMode;
+import org.acme.search.enums.SearchView;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryTemplateTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testRenderMinifiesAndFillsSlots() {
+        QueryTemplate template = QueryTemplate.compile("""
+            {
+              "size": {{size}},
+              "query": { "match": { "searchTitle": "{{query}} and more" } }
+            }
+            """);
+
+        String rendered = new String(template.render(25, QueryTemplate.escape("Barcelona")), StandardCharsets.UTF_8);
+
+        assertEquals("{\"size\":25,\"query\":{\"match\":{\"searchTitle\":\"Barcelona and more\"}}}", rendered);
+    }
+
+    @Test
+    void testRenderEscapesQuery() throws Exception {
+        QueryTemplate template = QueryTemplate.compile("""
+            {"size": {{size}}, "a": "{{query}}", "b": ["{{query}}"]}
+            """);
+        String query = "He said \"hi\"\n\\ \u0001 ünïcode";
+
+        JsonNode rendered = objectMapper.readTree(template.render(0, QueryTemplate.escape(query)));
+
+        assertEquals(0, rendered.get("size").asInt());
+        assertEquals(query, rendered.get("a").asText());
+        assertEquals(query, rendered.get("b").get(0).asText());
+    }
+
+    @Test
+    void testRenderNegativeSize() throws Exception {
+        QueryTemplate template = QueryTemplate.compile("{\"size\": {{size}}}");
+
+        assertEquals(-12, objectMapper.readTree(template.render(-12, QueryTemplate.escape(""))).get("size").asInt());
+    }
+
+    @Test
+    void testWithFieldPrependsField() {
+        QueryTemplate template = QueryTemplate.compile("{\"size\": {{size}}, \"query\": {\"match_all\": {}}}")
+            .withField("_source", "{ \"includes\": [\"id\"] }");
+
+        String rendered = new String(template.render(5, QueryTemplate.escape("")), StandardCharsets.UTF_8);
+
+        assertEquals("{\"_source\":{\"includes\":[\"id\"]},\"size\":5,\"query\":{\"match_all\":{}}}", rendered);
+    }
+
+    @Test
+    void testRenderInsertsFilterAsIs() {
+        QueryTemplate template = QueryTemplate.compile("{\"size\": {{size}}, \"query\": {\"bool\": {\"must\": \"{{query}}\"{{filter}}}}}");
+        byte[] filter = ",\"filter\":[{\"term\":{\"flags\":\"x\"}}]".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("{\"size\":5,\"query\":{\"bool\":{\"must\":\"q\",\"filter\":[{\"term\":{\"flags\":\"x\"}}]}}}",
+            new String(template.render(5, QueryTemplate.escape("q"), filter), StandardCharsets.UTF_8));
+        assertEquals("{\"size\":5,\"query\":{\"bool\":{\"must\":\"q\"}}}",
+            new String(template.render(5, QueryTemplate.escape("q")), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWithFieldsKeepsPlaceholders() {
+        QueryTemplate template = QueryTemplate.compile("{\"size\": {{size}}, \"q\": \"{{query}}\"}")
+            .withFields("\"pit\": {{pit}}, \"track_total_hits\": false{{search_after}},");
+
+        assertEquals("{\"pit\":{\"id\":\"p\"},\"track_total_hits\":false,\"search_after\":[1],\"size\":3,\"q\":\"x\"}",
+            new String(template.render(3, QueryTemplate.escape("x"), Map.of(
+                QueryTemplate.Slot.PIT, "{\"id\":\"p\"}".getBytes(StandardCharsets.UTF_8),
+                QueryTemplate.Slot.SEARCH_AFTER, ",\"search_after\":[1]".getBytes(StandardCharsets.UTF_8))), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testUnknownPlaceholder() {
+        assertThrows(IllegalArgumentException.class, () -> QueryTemplate.compile("{\"size\": {{from}}}"));
+    }
+
+    @Test
+    void testWrapperQueriesAreValidJsonForEveryMode() throws Exception {
+        SearchService searchService = new SearchService();
+        String query = "Barça \"El Clásico\"\ttest";
+
+        for (SearchMode mode : SearchMode.values()) {
+            byte[] body = searchService.buildWrapperSearchQuery(query, 7, mode);
+            JsonNode json = objectMapper.readTree(body);
+
+            assertEquals(7, json.get("size").asInt(), mode.name());
+            assertTrue(json.toString().contains("Barça \\\"El Clásico\\\"\\ttest"), mode.name());
+            assertFalse(new String(body, StandardCharsets.UTF_8).contains("\n"), mode.name());
+        }
+
+        JsonNode matchAll = objectMapper.readTree(searchService.buildWrapperSearchQuery("  ", 3, SearchMode.DEFAULT));
+        assertTrue(matchAll.get("query").has("match_all"));
+    }
+
+    @Test
+    void testSummaryQueriesFilterSource() throws Exception {
+        SearchService searchService = new SearchService();
+
+        for (SearchMode mode : SearchMode.values()) {
+            JsonNode full = objectMapper.readTree(searchService.buildWrapperSearchQuery("Barcelona", 7, mode, SearchView.FULL));
+            JsonNode summary = objectMapper.readTree(searchService.buildWrapperSearchQuery("Barcelona", 7, mode, SearchView.SUMMARY));
+
+            assertFalse(full.has("_source"), mode.name());
+            assertEquals(full.get("query"), summary.get("query"), mode.name());
+            assertTrue(summary.get("_source").get("includes").toString().contains("searchTitle"), mode.name());
+            assertFalse(summary.get("_source").get("includes").toString().contains("data"), mode.name());
+        }
+        assertTrue(objectMapper.readTree(searchService.buildWrapperSearchQuery(null, 3, SearchMode.DEFAULT, SearchView.SUMMARY)).has("_source"));
+    }
+
+    @Test
+    void testPageQueriesReadFromThePointInTime() throws Exception {
+        ArrayNode after = objectMapper.createArrayNode().add(1.5).add("fb:m:1");
+
+        for (SearchMode mode : SearchMode.values()) {
+            JsonNode first = objectMapper.readTree(SearchService.buildPageQuery("Barcelona", 20, mode, "pit==", "60000ms", null));
+            JsonNode next = objectMapper.readTree(SearchService.buildPageQuery("Barcelona", 20, mode, "pit==", "60000ms", after));
+
+            assertEquals(20, first.get("size").asInt(), mode.name());
+            assertEquals("pit==", first.get("pit").get("id").asText(), mode.name());
+            assertEquals("60000ms", first.get("pit").get("keep_alive").asText(), mode.name());
+            assertEquals("desc", first.get("sort").get(0).get("_score").asText(), mode.name());
+            assertFalse(first.get("track_total_hits").asBoolean(), mode.name());
+            assertFalse(first.has("search_after"), mode.name());
+            assertEquals(after, next.get("search_after"), mode.name());
+            assertEquals(first.get("query"), next.get("query"), mode.name());
+        }
+        assertTrue(objectMapper.readTree(SearchService.buildPageQuery("", 5, SearchMode.DEFAULT, "pit", "1m", null))
+            .get("query").has("match_all"));
+    }
+
+    @Test
+    void testExportQueriesReadInIndexOrder() throws Exception {
+        ArrayNode after = objectMapper.createArrayNode().add(41);
+        JsonNode export = objectMapper.readTree(SearchService.buildExportQuery("Barcelona", 1000, SearchMode.DEFAULT, "pit", "1m", after));
+
+        assertEquals(1000, export.get("size").asInt());
+        assertEquals("asc", export.get("sort").get(0).get("_shard_doc").asText());
+        assertEquals(1, export.get("sort").size());
+        assertEquals(after, export.get("search_after"));
+        assertEquals(objectMapper.readTree(new SearchService().buildWrapperSearchQuery("Barcelona", 1000, SearchMode.DEFAULT)).get("query"),
+            export.get("query"));
+    }
+
+    @Test
+    void testFiltersAreAddedInFilterContext() throws Exception {
+        SearchService searchService = new SearchService();
+        SearchFilters filters = SearchFilters.parse("live", null, "fb:c:3000", null, null, null);
+
+        for (SearchMode mode : SearchMode.values()) {
+            JsonNode plain = objectMapper.readTree(searchService.buildWrapperSearchQuery("Barcelona", 7, mode, SearchView.FULL));
+            JsonNode filtered = objectMapper.readTree(searchService.buildWrapperSearchQuery("Barcelona", 7, mode, SearchView.FULL, filters));
+
+            JsonNode bool = filtered.get("query").get("bool");
+            assertEquals(plain.get("query").get("bool").get("should"), bool.get("should"), mode.name());
+            assertEquals("live", bool.get("filter").get(0).get("terms").get(SearchFilters.STATUS_FIELD).get(0).asText(), mode.name());
+            assertEquals("fb:c:3000", bool.get("filter").get(1).get("terms").get("entityIds").get(0).asText(), mode.name());
+        }
+
+        JsonNode filterOnly = objectMapper.readTree(searchService.buildWrapperSearchQuery("", 3, SearchMode.DEFAULT, SearchView.SUMMARY, filters));
+        assertTrue(filterOnly.has("_source"));
+        assertTrue(filterOnly.get("query").get("bool").get("must").has("match_all"));
+        assertEquals(2, filterOnly.get("query").get("bool").get("filter").size());
+    }
+}
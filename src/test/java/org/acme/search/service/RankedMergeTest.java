@@ -0,0 +1,66 @@
+package org.acme.search.service;
+
+import org.acme.search.enums.EntityType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankedMergeTest {
+
+    @Test
+    void testInitialFetchSize() {
+        assertEquals(5, RankedMerge.initialFetchSize(10, 2.0, 4));
+        assertEquals(2, RankedMerge.initialFetchSize(3, 2.0, 4));
+        assertEquals(1, RankedMerge.initialFetchSize(1, 1.0, 4));
+        assertEquals(10, RankedMerge.initialFetchSize(10, 8.0, 4));
+    }
+
+    @Test
+    void testTopKInterleavesByScore() {
+        Map<EntityType, List<SearchResponseParser.ScoredHit>> results = new EnumMap<>(EntityType.class);
+        results.put(EntityType.MATCHES, hits("m1", 9.0, "m2", 7.0, "m3", 1.0));
+        results.put(EntityType.QUIZ_GAMES, hits("q1", 8.0, "q2", 0.5));
+        results.put(EntityType.PREDICTIONS, List.of());
+
+        List<RankedMerge.Entry> top = RankedMerge.topK(results, 3);
+
+        assertEquals(List.of("m1", "q1", "m2"), top.stream().map(entry -> entry.hit().source()).toList());
+        assertEquals(List.of(0, 0, 1), top.stream().map(RankedMerge.Entry::position).toList());
+    }
+
+    @Test
+    void testTopKWithFewerHitsThanK() {
+        Map<EntityType, List<SearchResponseParser.ScoredHit>> results = new EnumMap<>(EntityType.class);
+        results.put(EntityType.PLAYER_GAMES, hits("p1", 1.0));
+
+        assertEquals(1, RankedMerge.topK(results, 10).size());
+    }
+
+    @Test
+    void testTruncatedTypes() {
+        Map<EntityType, List<SearchResponseParser.ScoredHit>> results = new EnumMap<>(EntityType.class);
+        results.put(EntityType.MATCHES, hits("m1", 9.0, "m2", 8.0));
+        results.put(EntityType.QUIZ_GAMES, hits("q1", 7.0, "q2", 1.0));
+        results.put(EntityType.PREDICTIONS, hits("g1", 6.0));
+        Map<EntityType, Integer> requested = Map.of(EntityType.MATCHES, 2, EntityType.QUIZ_GAMES, 2, EntityType.PREDICTIONS, 2);
+
+        List<RankedMerge.Entry> top = RankedMerge.topK(results, 4);
+
+        // All matches made the top and there may be more; quizzes lost their last hit; predictions are exhausted
+        assertEquals(Set.of(EntityType.MATCHES), RankedMerge.truncated(results, requested, top));
+    }
+
+    private static List<SearchResponseParser.ScoredHit> hits(Object... sourcesAndScores) {
+        List<SearchResponseParser.ScoredHit> hits = new ArrayList<>();
+        for (int i = 0; i < sourcesAndScores.length; i += 2) {
+            hits.add(new SearchResponseParser.ScoredHit((Double) sourcesAndScores[i + 1], sourcesAndScores[i]));
+        }
+        return hits;
+    }
+}
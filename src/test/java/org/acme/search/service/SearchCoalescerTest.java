@@ -0,0 +1,162 @@
+package org.acme.search.service;
+
+import org.acme.search.config.SearchConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCoalescerTest {
+
+    private static final byte[] BODY = "{\"query\":{\"match_all\":{}}}".getBytes(StandardCharsets.UTF_8);
+
+    private SearchCoalescer coalescer;
+    private AtomicInteger searches;
+    private CompletableFuture<List<String>> response;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new SearchCoalescer();
+        coalescer.searchConfig = config(2);
+        searches = new AtomicInteger();
+        response = new CompletableFuture<>();
+    }
+
+    @Test
+    void testIdenticalSearchesShareOneRequest() throws Exception {
+        CompletableFuture<List<String>> first = coalescer.execute("football_matches", 0, BODY, this::search);
+        CompletableFuture<List<String>> second = coalescer.execute("football_matches", 0, BODY.clone(), this::search);
+
+        response.complete(List.of("a"));
+
+        assertEquals(List.of("a"), first.get());
+        assertEquals(List.of("a"), second.get());
+        assertEquals(1, searches.get());
+        assertEquals(1L, coalescer.stats().get("coalesced"));
+        assertEquals(0.5, coalescer.stats().get("coalescingRatio"));
+        assertEquals(0, coalescer.stats().get("inFlight"));
+    }
+
+    @Test
+    void testDifferentGenerationOrIndexIsNotShared() {
+        coalescer.execute("football_matches", 0, BODY, this::search);
+        coalescer.execute("football_matches", 1, BODY, this::search);
+        coalescer.execute("predictions", 0, BODY, this::search);
+
+        assertEquals(3, searches.get());
+    }
+
+    @Test
+    void testCompletedSearchIsNotReused() throws Exception {
+        response.complete(List.of("a"));
+        coalescer.execute("football_matches", 0, BODY, this::search).get();
+        coalescer.execute("football_matches", 0, BODY, this::search).get();
+
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    void testCancellingOneCallerKeepsTheSharedSearch() throws Exception {
+        CompletableFuture<List<String>> first = coalescer.execute("football_matches", 0, BODY, this::search);
+        CompletableFuture<List<String>> second = coalescer.execute("football_matches", 0, BODY, this::search);
+
+        first.cancel(true);
+        response.complete(List.of("a"));
+
+        assertFalse(response.isCancelled());
+        assertEquals(List.of("a"), second.get());
+    }
+
+    @Test
+    void testCancellingTheOnlyCallerCancelsTheSearch() {
+        CompletableFuture<List<String>> only = coalescer.execute("football_matches", 0, BODY, this::search);
+
+        only.cancel(true);
+
+        assertTrue(response.isCancelled());
+        assertEquals(0, coalescer.stats().get("inFlight"));
+    }
+
+    @Test
+    void testSearchIsCancelledWhenTheLastCallerCancels() {
+        CompletableFuture<List<String>> first = coalescer.execute("football_matches", 0, BODY, this::search);
+        CompletableFuture<List<String>> second = coalescer.execute("football_matches", 0, BODY, this::search);
+
+        first.cancel(true);
+        assertFalse(response.isCancelled());
+        second.cancel(true);
+
+        assertTrue(response.isCancelled());
+        assertEquals(1, searches.get());
+    }
+
+    @Test
+    void testFailureReachesAllCallers() {
+        CompletableFuture<List<String>> first = coalescer.execute("football_matches", 0, BODY, this::search);
+        CompletableFuture<List<String>> second = coalescer.execute("football_matches", 0, BODY, this::search);
+
+        response.completeExceptionally(new IOException("boom"));
+
+        assertInstanceOf(IOException.class, assertThrows(ExecutionException.class, first::get).getCause());
+        assertInstanceOf(IOException.class, assertThrows(ExecutionException.class, second::get).getCause());
+        assertEquals(0, coalescer.stats().get("inFlight"));
+    }
+
+    @Test
+    void testBypassesWhenFull() {
+        coalescer.execute("a", 0, BODY, this::search);
+        coalescer.execute("b", 0, BODY, this::search);
+        coalescer.execute("c", 0, BODY, this::search);
+        coalescer.execute("c", 0, BODY, this::search);
+
+        assertEquals(4, searches.get());
+        assertEquals(2L, coalescer.stats().get("bypassed"));
+    }
+
+    private CompletableFuture<List<String>> search() {
+        searches.incrementAndGet();
+        return response;
+    }
+
+    private static SearchConfig config(int maxInFlight) {
+        SearchConfig.Coalesce coalesceConfig = new SearchConfig.Coalesce() {
+            @Override
+            public boolean enabled() {
+                return true;
+            }
+
+            @Override
+            public int maxInFlight() {
+                return maxInFlight;
+            }
+        };
+        return new SearchConfig() {
+            @Override
+            public Unified unified() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Cache cache() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Coalesce coalesce() {
+                return coalesceConfig;
+            }
+
+            @Override
+            public Paging paging() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
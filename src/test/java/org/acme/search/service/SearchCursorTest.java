@@ -0,0 +1,48 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.acme.search.enums.SearchMode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCursorTest {
+
+    @Test
+    void testRoundTrip() {
+        ArrayNode after = new ObjectMapper().createArrayNode().add(1.25).add("fb:m:17").add(4294967300L);
+        SearchCursor cursor = new SearchCursor("matches", "Barça \"vs\"", SearchMode.FULL_MATCH, 20, "pit==", after);
+
+        String token = cursor.encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+        assertEquals(cursor, SearchCursor.decode(token));
+    }
+
+    @Test
+    void testRoundTripAcrossAllTypes() {
+        ArrayNode after = new ObjectMapper().createArrayNode().add(1.0).add("4000");
+        SearchCursor cursor = new SearchCursor(null, null, SearchMode.DEFAULT, 10, "pit", after);
+
+        SearchCursor decoded = SearchCursor.decode(cursor.encode());
+
+        assertNull(decoded.type());
+        assertNull(decoded.query());
+        assertEquals(after, decoded.searchAfter());
+    }
+
+    @Test
+    void testRejectsInvalidTokens() {
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("e30"));
+    }
+
+    @Test
+    void testRejectsOversizedPages() {
+        ArrayNode after = new ObjectMapper().createArrayNode().add(1.0);
+        String crafted = new SearchCursor(null, null, SearchMode.DEFAULT, SearchService.MAX_PAGE_SIZE + 1, "pit", after).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(crafted));
+    }
+}
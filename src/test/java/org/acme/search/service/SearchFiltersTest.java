@@ -0,0 +1,72 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchFiltersTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testNoParametersIsNoFilter() {
+        SearchFilters filters = SearchFilters.parse(null, " ", null, "", null, null);
+
+        assertTrue(filters.isEmpty());
+        assertEquals(SearchFilters.NONE, filters);
+        assertEquals(0, filters.clauses().length);
+    }
+
+    @Test
+    void testValuesAreNormalizedSortedAndDistinct() {
+        SearchFilters filters = SearchFilters.parse("Live, finished,LIVE", "TOP_X", "fb:c:3001,fb:c:3000", "hot,", null, null);
+
+        assertEquals(List.of("finished", "live"), filters.statuses());
+        assertEquals(List.of("top_x"), filters.gameTypes());
+        assertEquals(List.of("fb:c:3000", "fb:c:3001"), filters.competitionIds());
+        assertEquals(List.of("hot"), filters.flags());
+        assertEquals(filters, SearchFilters.parse("finished,live", "top_x", "fb:c:3000,fb:c:3001", "hot", null, null));
+    }
+
+    @Test
+    void testDatesCoverWholeDays() {
+        SearchFilters filters = SearchFilters.parse(null, null, null, null, "2025-06-01", "2025-06-07");
+
+        assertEquals(1748736000000L, filters.kickoffFrom());
+        assertEquals(1749340800000L, filters.kickoffUntil());
+    }
+
+    @Test
+    void testDateTimesAreInclusive() {
+        SearchFilters filters = SearchFilters.parse(null, null, null, null, "2025-06-01T18:00:00Z", "2025-06-01T20:00:00+02:00");
+
+        assertEquals(1748800800000L, filters.kickoffFrom());
+        assertEquals(1748800800001L, filters.kickoffUntil());
+    }
+
+    @Test
+    void testInvalidRanges() {
+        assertThrows(IllegalArgumentException.class, () -> SearchFilters.parse(null, null, null, null, "yesterday", null));
+        assertThrows(IllegalArgumentException.class, () -> SearchFilters.parse(null, null, null, null, "2025-06-07", "2025-06-01"));
+    }
+
+    @Test
+    void testClausesAreAFilterMember() throws Exception {
+        SearchFilters filters = SearchFilters.parse("live", null, null, "hot", "2025-06-01", null);
+        String member = new String(filters.clauses(), StandardCharsets.UTF_8);
+
+        assertTrue(member.startsWith(",\"filter\":"));
+        JsonNode clauses = objectMapper.readTree(member.substring(",\"filter\":".length()));
+        assertEquals(3, clauses.size());
+        assertEquals("live", clauses.get(0).get("terms").get(SearchFilters.STATUS_FIELD).get(0).asText());
+        assertEquals("hot", clauses.get(1).get("terms").get("flags").get(0).asText());
+        JsonNode range = clauses.get(2).get("range").get(SearchFilters.KICKOFF_FIELD);
+        assertEquals(1748736000000L, range.get("gte").asLong());
+        assertFalse(range.has("lt"));
+    }
+}
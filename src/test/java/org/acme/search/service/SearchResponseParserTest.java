@@ -0,0 +1,246 @@
+package org.acme.search.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.acme.search.dto.football.MatchWrapper;
+import org.acme.search.dto.potm.PlayerOfTheMatchWrapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchResponseParserTest {
+
+    private final SearchResponseParser parser;
+
+    SearchResponseParserTest() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        parser = new SearchResponseParser(objectMapper);
+    }
+
+    @Test
+    void testParseSearchHits() throws Exception {
+        String response = """
+            {
+              "took": 3,
+              "timed_out": false,
+              "_shards": {"total": 1, "successful": 1, "skipped": 0, "failed": 0},
+              "hits": {
+                "total": {"value": 2, "relation": "eq"},
+                "max_score": 1.5,
+                "hits": [
+                  {
+                    "_index": "football_matches",
+                    "_id": "fb:m:1",
+                    "_score": 1.5,
+                    "_source": {
+                      "id": "fb:m:1",
+                      "searchTitle": "Barcelona vs Real Madrid",
+                      "searchDescription": "Football match at Camp Nou",
+                      "tags": ["football", "match"],
+                      "flags": [],
+                      "entityIds": ["fb:m:1"],
+                      "data": {"id": "fb:m:1", "venue": "Camp Nou", "homeTeam": {"id": "fb:t:1", "name": "Barcelona"}}
+                    }
+                  },
+                  {
+                    "_index": "football_matches",
+                    "_id": "fb:m:2",
+                    "_score": 0.5,
+                    "_source": {"id": "fb:m:2", "searchTitle": "Liverpool vs Arsenal", "data": {"id": "fb:m:2"}}
+                  }
+                ]
+              }
+            }
+            """;
+
+        List<MatchWrapper> hits = parser.parseSearchHits(stream(response), MatchWrapper.class);
+
+        assertEquals(2, hits.size());
+        assertEquals("Barcelona vs Real Madrid", hits.get(0).searchTitle());
+        assertEquals("Barcelona", hits.get(0).data().homeTeam().name());
+        assertEquals(List.of("football", "match"), hits.get(0).tags());
+        assertEquals("fb:m:2", hits.get(1).data().id());
+    }
+
+    @Test
+    void testParseScoredHits() throws Exception {
+        String response = """
+            {
+              "hits": {
+                "max_score": 2.25,
+                "hits": [
+                  {"_index": "football_matches_v2", "_id": "fb:m:1", "_score": 2.25, "_source": {"id": "fb:m:1", "searchTitle": "Liverpool vs Everton"}},
+                  {"_index": "football_matches_v2", "_id": "fb:m:2", "_score": null, "_source": {"id": "fb:m:2"}}
+                ]
+              }
+            }
+            """;
+
+        List<SearchResponseParser.ScoredHit> hits = parser.parseScoredHits(stream(response), MatchWrapper.class);
+
+        assertEquals(2, hits.size());
+        assertEquals(2.25, hits.get(0).score());
+        assertEquals("Liverpool vs Everton", ((MatchWrapper) hits.get(0).source()).searchTitle());
+        assertEquals(0.0, hits.get(1).score());
+    }
+
+    @Test
+    void testWriteSourcesAsNdjson() throws Exception {
+        String response = """
+            {
+              "pit_id": "pit-2",
+              "hits": {
+                "hits": [
+                  {"_index": "predictions_v1", "_id": "1", "_source": {"id": "1", "data": {"tags": ["a", "b"]}}, "sort": [7]},
+                  {"_index": "predictions_v1", "_id": "2", "_source": {"id": "2", "searchTitle": "Café"}, "sort": [9]}
+                ]
+              }
+            }
+            """;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        SearchResponseParser.StreamedPage page = parser.writeSources(stream(response), output);
+
+        assertEquals("{\"id\":\"1\",\"data\":{\"tags\":[\"a\",\"b\"]}}\n{\"id\":\"2\",\"searchTitle\":\"Café\"}\n",
+            output.toString(StandardCharsets.UTF_8));
+        assertEquals(2, page.hits());
+        assertEquals("pit-2", page.pitId());
+        assertEquals(9, page.lastSort().get(0).asInt());
+    }
+
+    @Test
+    void testWriteSourcesFlushesOncePerPage() throws Exception {
+        StringBuilder hits = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            hits.append(i == 0 ? "" : ",").append("{\"_id\": \"").append(i).append("\", \"_source\": {\"id\": \"")
+                .append(i).append("\"}, \"sort\": [").append(i).append("]}");
+        }
+        AtomicInteger flushes = new AtomicInteger();
+        ByteArrayOutputStream output = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes.incrementAndGet();
+            }
+        };
+
+        SearchResponseParser.StreamedPage page = parser.writeSources(stream("{\"hits\": {\"hits\": [" + hits + "]}}"), output);
+
+        assertEquals(50, page.hits());
+        assertEquals(50, output.toString(StandardCharsets.UTF_8).lines().count());
+        assertEquals(1, flushes.get());
+    }
+
+    @Test
+    void testParseSearchHitsEmpty() throws Exception {
+        String response = """
+            {"took": 1, "hits": {"total": {"value": 0, "relation": "eq"}, "max_score": null, "hits": []}}
+            """;
+
+        assertTrue(parser.parseSearchHits(stream(response), MatchWrapper.class).isEmpty());
+    }
+
+    @Test
+    void testParseGetSource() throws Exception {
+        String found = """
+            {"_index": "player_games", "_id": "1", "_version": 1, "found": true,
+             "_source": {"id": "1", "searchTitle": "POTM", "data": {"id": 1, "matchId": 7, "gameTitle": "POTM"}}}
+            """;
+        String missing = """
+            {"_index": "player_games", "_id": "2", "found": false}
+            """;
+
+        Optional<PlayerOfTheMatchWrapper> wrapper = parser.parseGetSource(stream(found), PlayerOfTheMatchWrapper.class);
+        assertTrue(wrapper.isPresent());
+        assertEquals(7L, wrapper.get().data().matchId());
+
+        assertTrue(parser.parseGetSource(stream(missing), PlayerOfTheMatchWrapper.class).isEmpty());
+    }
+
+    @Test
+    void testParseMultiSearchWithFailedItem() throws Exception {
+        String response = """
+            {
+              "took": 4,
+              "responses": [
+                {"took": 2, "hits": {"hits": [{"_id": "fb:m:1", "_source": {"id": "fb:m:1", "searchTitle": "A vs B"}}]}, "status": 200},
+                {"error": {"type": "index_not_found_exception", "reason": "no such index [player_games]"}, "status": 404}
+              ]
+            }
+            """;
+
+        List<SearchResponseParser.MultiSearchItem> items = parser.parseMultiSearch(stream(response),
+            List.of(MatchWrapper.class, PlayerOfTheMatchWrapper.class));
+
+        assertEquals(2, items.size());
+        assertFalse(items.get(0).failed());
+        assertEquals("A vs B", ((MatchWrapper) items.get(0).hits().get(0)).searchTitle());
+        assertTrue(items.get(1).failed());
+        assertTrue(items.get(1).error().contains("index_not_found_exception"));
+        assertTrue(items.get(1).hits().isEmpty());
+    }
+
+    @Test
+    void testParseMultiGetInRequestOrder() throws Exception {
+        String response = """
+            {
+              "docs": [
+                {"_index": "player_games", "_id": "2", "found": false},
+                {"_index": "football_matches", "_id": "fb:m:1", "_version": 1, "found": true,
+                 "_source": {"id": "fb:m:1", "searchTitle": "A vs B", "data": {"id": "fb:m:1"}}},
+                {"_index": "quiz_games", "_id": "5", "error": {"type": "index_not_found_exception", "reason": "no such index"}}
+              ]
+            }
+            """;
+
+        List<SearchResponseParser.MultiGetItem> items = parser.parseMultiGet(stream(response),
+            List.of(PlayerOfTheMatchWrapper.class, MatchWrapper.class, MatchWrapper.class));
+
+        assertEquals(3, items.size());
+        assertFalse(items.get(0).found());
+        assertNull(items.get(0).error());
+        assertTrue(items.get(1).found());
+        assertEquals("A vs B", ((MatchWrapper) items.get(1).source()).searchTitle());
+        assertFalse(items.get(2).found());
+        assertTrue(items.get(2).error().contains("index_not_found_exception"));
+    }
+
+    @Test
+    void testParseTitleHits() throws Exception {
+        String response = """
+            {
+              "took": 1,
+              "hits": {
+                "max_score": 3.5,
+                "hits": [
+                  {"_index": "football_matches_v2", "_id": "fb:m:1", "_score": 3.5,
+                   "fields": {"searchTitle": ["Barcelona vs Real Madrid"]}},
+                  {"_index": "quiz_games_v1", "_id": "5", "_score": 1.25, "fields": {}},
+                  {"_index": "predictions", "_id": "7", "_score": 1.0,
+                   "fields": {"other": [{"a": 1}], "searchTitle": ["Prediction 7", "ignored"]}}
+                ]
+              }
+            }
+            """;
+
+        List<SearchResponseParser.TitleHit> hits = parser.parseTitleHits(stream(response));
+
+        assertEquals(3, hits.size());
+        assertEquals(new SearchResponseParser.TitleHit("football_matches_v2", "fb:m:1", 3.5, "Barcelona vs Real Madrid"), hits.get(0));
+        assertNull(hits.get(1).title());
+        assertEquals("Prediction 7", hits.get(2).title());
+        assertEquals("7", hits.get(2).id());
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,136 @@
+package org.acme.search.service;
+
+import org.acme.search.config.SearchConfig;
+import org.acme.search.enums.EntityType;
+import org.acme.search.enums.SearchMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchResultCacheTest {
+
+    private SearchResultCache cache;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SearchResultCache();
+        cache.searchConfig = config(3, Duration.ofSeconds(30), Map.of("matches", Duration.ofSeconds(5)));
+        cache.clock = () -> now;
+    }
+
+    @Test
+    void testHitAfterPut() {
+        SearchResultCache.Key key = SearchResultCache.Key.of(EntityType.PREDICTIONS, " Barcelona ", SearchMode.DEFAULT, 10);
+
+        assertNull(cache.get(key));
+        cache.put(key, List.of("a"), cache.generation(EntityType.PREDICTIONS));
+
+        assertEquals(List.of("a"), cache.get(SearchResultCache.Key.of(EntityType.PREDICTIONS, "Barcelona", SearchMode.DEFAULT, 10)));
+        assertNull(cache.get(SearchResultCache.Key.of(EntityType.PREDICTIONS, "barcelona", SearchMode.DEFAULT, 10)));
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(2L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void testPerTypeTtl() {
+        SearchResultCache.Key matches = SearchResultCache.Key.of(EntityType.MATCHES, "q", SearchMode.DEFAULT, 10);
+        SearchResultCache.Key quizzes = SearchResultCache.Key.of(EntityType.QUIZ_GAMES, "q", SearchMode.DEFAULT, 10);
+        cache.put(matches, List.of("m"), cache.generation(EntityType.MATCHES));
+        cache.put(quizzes, List.of("q"), cache.generation(EntityType.QUIZ_GAMES));
+
+        now += Duration.ofSeconds(6).toNanos();
+
+        assertNull(cache.get(matches));
+        assertEquals(List.of("q"), cache.get(quizzes));
+        assertEquals(1L, cache.stats().get("expirations"));
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        SearchResultCache.Key first = SearchResultCache.Key.of(EntityType.PREDICTIONS, "1", SearchMode.DEFAULT, 10);
+        SearchResultCache.Key second = SearchResultCache.Key.of(EntityType.PREDICTIONS, "2", SearchMode.DEFAULT, 10);
+        SearchResultCache.Key third = SearchResultCache.Key.of(EntityType.PREDICTIONS, "3", SearchMode.DEFAULT, 10);
+        SearchResultCache.Key fourth = SearchResultCache.Key.of(EntityType.PREDICTIONS, "4", SearchMode.DEFAULT, 10);
+        long generation = cache.generation(EntityType.PREDICTIONS);
+
+        cache.put(first, List.of(1), generation);
+        cache.put(second, List.of(2), generation);
+        cache.put(third, List.of(3), generation);
+        cache.get(first);
+        cache.put(fourth, List.of(4), generation);
+
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertEquals(3, cache.stats().get("size"));
+        assertEquals(1L, cache.stats().get("evictions"));
+    }
+
+    @Test
+    void testInvalidateDropsTypeAndStalePuts() {
+        SearchResultCache.Key matches = SearchResultCache.Key.of(EntityType.MATCHES, "q", SearchMode.DEFAULT, 10);
+        SearchResultCache.Key predictions = SearchResultCache.Key.of(EntityType.PREDICTIONS, "q", SearchMode.DEFAULT, 10);
+        long staleGeneration = cache.generation(EntityType.MATCHES);
+        cache.put(matches, List.of("m"), staleGeneration);
+        cache.put(predictions, List.of("p"), cache.generation(EntityType.PREDICTIONS));
+
+        cache.invalidate(EntityType.MATCHES);
+
+        assertNull(cache.get(matches));
+        assertEquals(List.of("p"), cache.get(predictions));
+
+        // A search that started before the write must not repopulate the cache
+        cache.put(matches, List.of("old"), staleGeneration);
+        assertNull(cache.get(matches));
+    }
+
+    private static SearchConfig config(int maxEntries, Duration ttl, Map<String, Duration> typeTtl) {
+        SearchConfig.Cache cacheConfig = new SearchConfig.Cache() {
+            @Override
+            public boolean enabled() {
+                return true;
+            }
+
+            @Override
+            public int maxEntries() {
+                return maxEntries;
+            }
+
+            @Override
+            public Duration ttl() {
+                return ttl;
+            }
+
+            @Override
+            public Map<String, Duration> typeTtl() {
+                return typeTtl;
+            }
+        };
+        return new SearchConfig() {
+            @Override
+            public Unified unified() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Cache cache() {
+                return cacheConfig;
+            }
+
+            @Override
+            public Coalesce coalesce() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Paging paging() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
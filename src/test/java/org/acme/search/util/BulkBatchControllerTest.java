@@ -0,0 +1,60 @@
+package org.acme.search.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkBatchControllerTest {
+
+    @Test
+    void testGrowsAdditivelyWhileFast() {
+        BulkBatchController controller = new BulkBatchController(1000, 100, 1200, 1 << 20, Duration.ofSeconds(1));
+
+        controller.onResponse(200, 0);
+        assertEquals(1100, controller.targetDocuments());
+
+        controller.onResponse(200, 0);
+        controller.onResponse(200, 0);
+        assertEquals(1200, controller.targetDocuments(), "Growth is capped at the max batch size");
+    }
+
+    @Test
+    void testShrinksWhenSlowOrRejected() {
+        BulkBatchController slow = new BulkBatchController(1000, 100, 10000, 1 << 20, Duration.ofSeconds(1));
+        slow.onResponse(1500, 0);
+        assertEquals(750, slow.targetDocuments());
+
+        BulkBatchController rejected = new BulkBatchController(1000, 100, 10000, 1 << 20, Duration.ofSeconds(1));
+        rejected.onResponse(100, 3);
+        assertEquals(500, rejected.targetDocuments());
+    }
+
+    @Test
+    void testDecreasesOncePerLatencyWindow() {
+        BulkBatchController controller = new BulkBatchController(1000, 100, 10000, 1 << 20, Duration.ofMinutes(1));
+
+        controller.onRejected();
+        controller.onRejected();
+        controller.onResponse(120_000, 0);
+
+        assertEquals(500, controller.targetDocuments());
+    }
+
+    @Test
+    void testNeverShrinksBelowMinimum() {
+        BulkBatchController controller = new BulkBatchController(150, 100, 10000, 1 << 20, Duration.ofMillis(1));
+
+        for (int i = 0; i < 5; i++) {
+            controller.onRejected();
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        assertEquals(100, controller.targetDocuments());
+    }
+}
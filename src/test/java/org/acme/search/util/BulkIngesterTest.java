@@ -0,0 +1,143 @@
+package org.acme.search.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkIngesterTest {
+
+    private static final String MIXED_RESPONSE = """
+        {"took":30,"errors":true,"items":[
+          {"index":{"_index":"predictions","_id":"1","status":201,"result":"created"}},
+          {"index":{"_index":"predictions","_id":"2","status":429,"error":{"type":"es_rejected_execution_exception","reason":"rejected execution"}}},
+          {"index":{"_index":"predictions","_id":"3","status":400,"error":{"type":"document_parsing_exception","reason":"failed to parse field [kickoffAt]"}}},
+          {"index":{"_index":"predictions","_id":"4","status":201,"result":"created"}}
+        ]}
+        """;
+    private static final String REJECTED_RESPONSE = """
+        {"took":5,"errors":true,"items":[
+          {"index":{"_index":"predictions","_id":"2","status":429,"error":{"type":"es_rejected_execution_exception","reason":"rejected execution"}}}
+        ]}
+        """;
+    private static final String SUCCESS_RESPONSE = """
+        {"took":5,"errors":false,"items":[{"index":{"_index":"predictions","_id":"2","status":201,"result":"created"}}]}
+        """;
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final Queue<String> responses = new ConcurrentLinkedQueue<>();
+    private HttpServer server;
+    private RestClient restClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/_bulk", exchange -> {
+            requests.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            byte[] response = responses.remove().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+        restClient = RestClient.builder(new HttpHost("localhost", server.getAddress().getPort())).build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        restClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testResendsTransientFailuresAndDeadLettersTheRest() throws Exception {
+        responses.add(MIXED_RESPONSE);
+        responses.add(SUCCESS_RESPONSE);
+        Path deadLetterFile = tempDir.resolve("failed.ndjson");
+
+        BulkIngester ingester = ingester(3, deadLetterFile);
+        indexFourDocuments(ingester);
+        ingester.close();
+
+        assertEquals(2, requests.size());
+        assertEquals(action("2") + document("2"), requests.get(1));
+        assertEquals(action("3") + document("3"), Files.readString(deadLetterFile));
+        assertEquals(3, ingester.sentDocuments());
+        assertEquals(1, ingester.retriedDocuments());
+        assertEquals(1, ingester.failedDocuments());
+        assertEquals(2, ingester.sentRequests());
+    }
+
+    @Test
+    void testDeadLettersItemsThatRunOutOfAttempts() throws Exception {
+        responses.add(MIXED_RESPONSE);
+        responses.add(REJECTED_RESPONSE);
+        Path deadLetterFile = tempDir.resolve("failed.ndjson");
+
+        BulkIngester ingester = ingester(2, deadLetterFile);
+        indexFourDocuments(ingester);
+        ingester.close();
+
+        assertEquals(2, requests.size());
+        assertEquals(action("3") + document("3") + action("2") + document("2"), Files.readString(deadLetterFile));
+        assertEquals(2, ingester.sentDocuments());
+        assertEquals(1, ingester.retriedDocuments());
+        assertEquals(2, ingester.failedDocuments());
+    }
+
+    @Test
+    void testMalformedResponseFailsIngestion() throws Exception {
+        responses.add("[]");
+
+        BulkIngester ingester = ingester(3, tempDir.resolve("failed.ndjson"));
+        indexFourDocuments(ingester);
+
+        assertThrows(IOException.class, ingester::close);
+        assertEquals(0, ingester.sentDocuments());
+    }
+
+    private BulkIngester ingester(int maxAttempts, Path deadLetterFile) {
+        BulkBatchController batchController = new BulkBatchController(100, 10, 100, 1 << 20, Duration.ofSeconds(1));
+        BulkIngester.RetryPolicy retryPolicy = new BulkIngester.RetryPolicy(maxAttempts, Duration.ofMillis(1), Duration.ofMillis(5));
+        return new BulkIngester(restClient, objectMapper, batchController, 1, retryPolicy, deadLetterFile);
+    }
+
+    private void indexFourDocuments(BulkIngester ingester) throws Exception {
+        try (BulkIngester.Writer writer = ingester.writer()) {
+            for (String id : List.of("1", "2", "3", "4")) {
+                writer.index("predictions", id, Map.of("id", id));
+            }
+        }
+    }
+
+    private static String action(String id) {
+        return "{\"index\":{\"_index\":\"predictions\",\"_id\":\"" + id + "\"}}\n";
+    }
+
+    private static String document(String id) {
+        return "{\"id\":\"" + id + "\"}\n";
+    }
+}